@@ -0,0 +1,45 @@
+package benchmarks;
+
+import chess.ChessBoard;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Setting up, comparing and hashing boards
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    private ChessBoard board;
+    private ChessBoard equalBoard;
+
+    @Setup
+    public void setUp() {
+        board = new ChessBoard();
+        board.resetBoard();
+        equalBoard = new ChessBoard();
+        equalBoard.resetBoard();
+    }
+
+    @Benchmark
+    public ChessBoard resetBoard() {
+        board.resetBoard();
+        return board;
+    }
+
+    @Benchmark
+    public boolean equalBoards() {
+        return board.equals(equalBoard);
+    }
+
+    @Benchmark
+    public int boardHashCode() {
+        return board.hashCode();
+    }
+}
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ChessGame calls the server makes for every websocket move: legal moves, making a
+ * move, and the check, checkmate and stalemate tests that follow it
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    private ChessGame middlegame;
+    private ChessGame checkmate;
+    private ChessGame stalemate;
+
+    private final ChessPosition queen = ChessPosition.of(3, 6);
+    private final ChessMove knightMove = new ChessMove(ChessPosition.of(5, 5), ChessPosition.of(7, 6), null);
+
+    @Setup
+    public void setUp() throws InvalidMoveException {
+        middlegame = Perft.Position.KIWIPETE.newGame();
+
+        //fool's mate
+        checkmate = new ChessGame();
+        checkmate.makeMove(new ChessMove(ChessPosition.of(2, 6), ChessPosition.of(3, 6), null));
+        checkmate.makeMove(new ChessMove(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null));
+        checkmate.makeMove(new ChessMove(ChessPosition.of(2, 7), ChessPosition.of(4, 7), null));
+        checkmate.makeMove(new ChessMove(ChessPosition.of(8, 4), ChessPosition.of(4, 8), null));
+
+        ChessBoard board = new ChessBoard();
+        board.addPiece(ChessPosition.of(8, 1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(6, 2), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        board.addPiece(ChessPosition.of(1, 3), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        stalemate = new ChessGame();
+        stalemate.setBoard(board);
+        stalemate.setTeamTurn(ChessGame.TeamColor.BLACK);
+    }
+
+    @Benchmark
+    public Collection<ChessMove> validMoves() {
+        return middlegame.validMoves(queen);
+    }
+
+    @Benchmark
+    public Collection<ChessMove> allValidMoves() {
+        return middlegame.allValidMoves(ChessGame.TeamColor.WHITE);
+    }
+
+    //takes the move back afterwards so every invocation starts from the same position
+    @Benchmark
+    public ChessGame makeMove() throws InvalidMoveException {
+        middlegame.makeMove(knightMove);
+        middlegame.undoMove();
+        return middlegame;
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return middlegame.isInCheck(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return checkmate.isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        return stalemate.isInStalemate(ChessGame.TeamColor.BLACK);
+    }
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Perft;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pseudo-legal moves for every white piece of one type in a busy middlegame position
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceMovesBenchmark {
+
+    @Param({"KING", "QUEEN", "BISHOP", "KNIGHT", "ROOK", "PAWN"})
+    public ChessPiece.PieceType type;
+
+    private ChessBoard board;
+    private ChessPosition[] positions;
+
+    @Setup
+    public void setUp() {
+        board = Perft.Position.KIWIPETE.newGame().getBoard();
+        List<ChessPosition> found = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(ChessPosition.of(row, col));
+                if (piece != null && piece.getTeamColor() == ChessGame.TeamColor.WHITE && piece.getPieceType() == type) {
+                    found.add(ChessPosition.of(row, col));
+                }
+            }
+        }
+        positions = found.toArray(new ChessPosition[0]);
+    }
+
+    @Benchmark
+    public void pieceMoves(Blackhole blackhole) {
+        for (ChessPosition position : positions) {
+            blackhole.consume(board.getPiece(position).pieceMoves(board, position));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import chess.ChessGame;
+import chess.Perft;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+import serialization.Serializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson round trips of a game, the server does one per move to store the game and one
+ * per connected player to send it. Reflective Gson is measured against the streaming
+ * adapters in Serializer, the binary form from ChessGame.toBytes and FEN
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private final Gson gson = new Gson();
+    private ChessGame game;
+    private String json;
+    private byte[] bytes;
+    private String fen;
+
+    @Setup
+    public void setUp() {
+        game = Perft.Position.KIWIPETE.newGame();
+        json = gson.toJson(game);
+        bytes = game.toBytes();
+        fen = game.toFen();
+    }
+
+    @Benchmark
+    public String toJson() {
+        return gson.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame fromJson() {
+        return gson.fromJson(json, ChessGame.class);
+    }
+
+    @Benchmark
+    public ChessGame roundTrip() {
+        return gson.fromJson(gson.toJson(game), ChessGame.class);
+    }
+
+    @Benchmark
+    public String adapterToJson() {
+        return Serializer.GSON.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame adapterFromJson() {
+        return Serializer.GSON.fromJson(json, ChessGame.class);
+    }
+
+    @Benchmark
+    public byte[] toBytes() {
+        return game.toBytes();
+    }
+
+    @Benchmark
+    public ChessGame fromBytes() {
+        return ChessGame.fromBytes(bytes);
+    }
+
+    @Benchmark
+    public ChessGame bytesRoundTrip() {
+        return ChessGame.fromBytes(game.toBytes());
+    }
+
+    @Benchmark
+    public String toFen() {
+        return game.toFen();
+    }
+
+    @Benchmark
+    public ChessGame fromFen() {
+        return ChessGame.fromFen(fen);
+    }
+}
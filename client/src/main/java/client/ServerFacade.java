@@ -8,6 +8,7 @@ import model.AuthData;
 import model.GameData;
 import model.GamesList;
 import model.UserData;
+import serialization.Serializer;
 
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -17,6 +18,7 @@ import java.util.*;
 
 
 public class ServerFacade {
+    private static final Gson GSON = Serializer.GSON;
     private final String baseURL;
 
 
@@ -26,7 +28,7 @@ public class ServerFacade {
 
     public int createGame(String gameName, String authToken) {
         var body = Map.of("gameName", gameName);
-        var jsonBody = new Gson().toJson(body);
+        var jsonBody = GSON.toJson(body);
         Map<String, Object> resp = request("POST", "/game", jsonBody, authToken);
         if (resp.containsKey("Error") || resp.containsKey("message")) {
             String message = (String) resp.getOrDefault("Error", resp.get("message"));
@@ -41,7 +43,7 @@ public class ServerFacade {
         if (resp.startsWith("Error")) {
             throw new RuntimeException(resp);
         }
-        GamesList games = new Gson().fromJson(resp, GamesList.class);
+        GamesList games = GSON.fromJson(resp, GamesList.class);
         return games.games();
     }
 
@@ -50,23 +52,23 @@ public class ServerFacade {
                 "username", username,
                 "password", password
         );
-        var jsonBody = new Gson().toJson(credentials);
+        var jsonBody = GSON.toJson(credentials);
         Map<String, Object> response = request("POST", "/session", jsonBody, null);
         if (response.containsKey("Error") || response.containsKey("message")) {
             String message = (String) response.getOrDefault("Error", response.get("message"));
             throw new Exception(message);
         }
-        return new Gson().fromJson(new Gson().toJson(response), AuthData.class);
+        return toAuthData(response);
     }
 
     public AuthData register(UserData user) throws Exception {
-        var jsonBody = new Gson().toJson(user);
+        var jsonBody = GSON.toJson(user);
         Map<String, Object> response = request("POST", "/user", jsonBody, null);
         if (response.containsKey("Error") || response.containsKey("message")) {
             String message = (String) response.getOrDefault("Error", response.get("message"));
             throw new Exception(message);
         }
-        return new Gson().fromJson(new Gson().toJson(response), AuthData.class);
+        return toAuthData(response);
     }
 
     public void logout(String authToken) throws Exception {
@@ -84,7 +86,7 @@ public class ServerFacade {
         } else {
             body = Map.of("gameID", gameId);
         }
-        String jsonBody = new Gson().toJson(body);
+        String jsonBody = GSON.toJson(body);
         Map<String, Object> response = request("PUT", "/game", jsonBody, authToken);
         if (response.containsKey("Error") || response.containsKey("message")) {
             String message = (String) response.getOrDefault("Error", response.get("message"));
@@ -96,7 +98,7 @@ public class ServerFacade {
 
     public void observeGame(int gameID, String authToken) throws Exception {
         Map<String, Object> body = Map.of("gameID", gameID);
-        String jsonBody = new Gson().toJson(body);
+        String jsonBody = GSON.toJson(body);
         Map<String, Object> response = request("PUT", "/game/observe", jsonBody, authToken);
         if (response.containsKey("Error") || response.containsKey("message")) {
             String message = (String) response.getOrDefault("Error", response.get("message"));
@@ -119,7 +121,7 @@ public class ServerFacade {
             throw new Exception(response);
         }
 
-        return new Gson().fromJson(response, ChessBoard.class);
+        return GSON.fromJson(response, ChessBoard.class);
     }
 
     public void makeMove(int gameId, String authToken, ChessMove move) throws Exception {
@@ -127,7 +129,7 @@ public class ServerFacade {
                 "gameID", gameId,
                 "move", move
         );
-        var jsonBody = new Gson().toJson(body);
+        var jsonBody = GSON.toJson(body);
         Map<String, Object> response = request("POST", "/game/move", jsonBody, authToken);
 
         if (response.containsKey("Error") || response.containsKey("message")) {
@@ -137,6 +139,11 @@ public class ServerFacade {
     }
 
 
+    //the response map already holds the fields, no need to write it back out and parse it again
+    private static AuthData toAuthData(Map<String, Object> response) {
+        return new AuthData((String) response.get("username"), (String) response.get("authToken"));
+    }
+
     private Map<String, Object> request(String method, String path, String bodyJson, String authToken) {
         HttpURLConnection connection = null;
         try {
@@ -163,7 +170,7 @@ public class ServerFacade {
                     : connection.getErrorStream();
 
             String response = new String(inputStream.readAllBytes());
-            return new Gson().fromJson(response, Map.class);
+            return GSON.fromJson(response, Map.class);
 
         } catch (Exception e) {
             try {
@@ -171,7 +178,7 @@ public class ServerFacade {
                     InputStream errorStream = connection.getErrorStream();
                     if (errorStream != null) {
                         String response = new String(errorStream.readAllBytes());
-                        return new Gson().fromJson(response, Map.class);
+                        return GSON.fromJson(response, Map.class);
                     }
                 }
             } catch (Exception inner) {
@@ -2,12 +2,8 @@ package client;
 
 
 import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import serialization.Serializer;
 import websocket.commands.UserGameCommand;
-import websocket.messages.ErrorMessage;
-import websocket.messages.LoadGame;
-import websocket.messages.Notification;
 import websocket.messages.ServerMessage;
 
 import java.net.URI;
@@ -18,7 +14,8 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 public class WebSocketFacade implements Listener {
-    private final Gson gson = new Gson();
+    //understands LOAD_GAME games sent as FEN as well as the full board
+    private final Gson gson = Serializer.GSON;
     private final ServerMessageHandler handler;
     private WebSocket webSocket;
     private final CompletableFuture<Void> connectionReady = new CompletableFuture<>();
@@ -61,19 +58,8 @@ public class WebSocketFacade implements Listener {
     @Override
     public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
         try {
-            JsonObject jsonObject = JsonParser.parseString(data.toString()).getAsJsonObject();
-            String typeStr = jsonObject.get("serverMessageType").getAsString();
-
-            ServerMessage.ServerMessageType type = ServerMessage.ServerMessageType.valueOf(typeStr);
-
-            ServerMessage message;
-
-            switch (type) {
-                case LOAD_GAME -> message = gson.fromJson(data.toString(), LoadGame.class);
-                case NOTIFICATION -> message = gson.fromJson(data.toString(), Notification.class);
-                case ERROR -> message = gson.fromJson(data.toString(), ErrorMessage.class);
-                default -> throw new IllegalArgumentException("Unknown message type: " + typeStr);
-            }
+            // The message adapter builds the right subclass from serverMessageType in one pass
+            ServerMessage message = gson.fromJson(data.toString(), ServerMessage.class);
 
             handler.handle(message);
 
@@ -56,7 +56,7 @@ public class ChessBoardDrawer {
         boolean lightSquare = (row + col) % 2 == 0;
         System.out.print(lightSquare ? SET_BG_COLOR_LIGHT_GREY : SET_BG_COLOR_RED);
 
-        ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+        ChessPiece piece = board.getPiece(ChessPosition.of(row, col));
         if (piece != null) {
             String color = (piece.getTeamColor() == TeamColor.WHITE) ? SET_TEXT_COLOR_WHITE : SET_TEXT_COLOR_BLACK;
             String symbol = pieceSymbol(piece);
@@ -90,7 +90,7 @@ public class ChessBoardDrawer {
         int[] colRange = whitePerspective ? range(1, 8, 1) : range(8, 1, -1);
 
         for (int col : colRange) {
-            ChessPosition pos = new ChessPosition(row, col);
+            ChessPosition pos = ChessPosition.of(row, col);
             boolean isFrom = pos.equals(from);
             boolean isHighlight = highlights.contains(pos);
 
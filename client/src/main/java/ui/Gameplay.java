@@ -4,25 +4,32 @@ import chess.*;
 import client.WebSocketFacade;
 import client.ServerFacade;
 import client.ServerMessageHandler;
+import websocket.commands.Connect;
 import websocket.commands.MakeMove;
+import websocket.commands.Resync;
 import websocket.commands.UserGameCommand;
 import websocket.messages.ErrorMessage;
 import websocket.messages.LoadGame;
+import websocket.messages.MoveDelta;
 import websocket.messages.Notification;
 import websocket.messages.ServerMessage;
 import com.google.gson.Gson;
+import serialization.Serializer;
 
 import java.util.Collection;
 import java.util.Scanner;
 
 public class Gameplay implements ServerMessageHandler {
-    private final Gson gson = new Gson();
+    //understands LOAD_GAME games sent as FEN as well as the full board
+    private final Gson gson = Serializer.GSON;
     private final Scanner scanner;
     private final int gameId;
     private final boolean isObserver;
     private final ChessGame.TeamColor playerColor;
     private final String authToken;
     private ChessGame currentGame;
+    //set while waiting for the LOAD_GAME answering a RESYNC, so deltas in between only ask once
+    private boolean resyncRequested;
     private final WebSocketFacade sender;
     private final ServerFacade server;
     private final int port;
@@ -40,8 +47,8 @@ public class Gameplay implements ServerMessageHandler {
     }
 
     public void run() {
-        sender.connect("ws://localhost:" + port + "/ws",
-                new UserGameCommand(UserGameCommand.CommandType.CONNECT, authToken, gameId));
+        // Ask for MOVE_DELTA after each move rather than the whole game
+        sender.connect("ws://localhost:" + port + "/ws", new Connect(authToken, gameId, true));
 
         while (true) {
             System.out.print("[IN_GAME] >>> ");
@@ -76,6 +83,7 @@ public class Gameplay implements ServerMessageHandler {
     public void handle(ServerMessage message) {
         switch (message.getServerMessageType()) {
             case LOAD_GAME -> handleLoadGame((LoadGame) message);
+            case MOVE_DELTA -> handleMoveDelta((MoveDelta) message);
             case NOTIFICATION -> handleNotification((Notification) message);
             case ERROR -> handleError((ErrorMessage) message);
             default -> System.out.println("Unknown message type: " + message.getServerMessageType());
@@ -85,13 +93,7 @@ public class Gameplay implements ServerMessageHandler {
     // Deserialize JSON into correct subclass before calling handle()
     public void handleMessage(String json) {
         try {
-            ServerMessage base = gson.fromJson(json, ServerMessage.class);
-            switch (base.getServerMessageType()) {
-                case LOAD_GAME -> handle(gson.fromJson(json, LoadGame.class));
-                case NOTIFICATION -> handle(gson.fromJson(json, Notification.class));
-                case ERROR -> handle(gson.fromJson(json, ErrorMessage.class));
-                default -> System.err.println("Unknown server message type: " + base.getServerMessageType());
-            }
+            handle(gson.fromJson(json, ServerMessage.class));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -99,24 +101,57 @@ public class Gameplay implements ServerMessageHandler {
 
     private void handleLoadGame(LoadGame message) {
         this.currentGame = message.getGame();
+        resyncRequested = false;
 
         if (currentGame != null) {
-            System.out.println();
-            ChessBoard board = currentGame.getBoard();
-
-            boolean whiteOnBottom;
-            if (isObserver) {
-                whiteOnBottom = true;
-            } else {
-                whiteOnBottom = (playerColor == ChessGame.TeamColor.WHITE);
+            if (message.getPly() != null) {
+                currentGame.setPly(message.getPly());
             }
-
-            new ChessBoardDrawer(board).print(whiteOnBottom);
+            printBoard();
         } else {
             System.out.println("[DEBUG] Received LOAD_GAME with null game state.");
         }
     }
 
+    // Plays the move on our copy of the game, asking for the whole game if the copy is behind or differs
+    private void handleMoveDelta(MoveDelta message) {
+        if (resyncRequested) {
+            return;
+        }
+        if (currentGame == null || message.getPly() != currentGame.getPly() + 1) {
+            if (currentGame != null && message.getPly() <= currentGame.getPly()) {
+                return; // already applied
+            }
+            requestResync();
+            return;
+        }
+
+        if (currentGame.getBoard().getPiece(message.getMove().startPosition()) == null) {
+            requestResync();
+            return;
+        }
+        currentGame.doMove(message.getMove());
+        if (currentGame.positionKey() != message.getPositionKey()) {
+            requestResync();
+            return;
+        }
+        if (message.getStatus() == MoveDelta.Status.CHECKMATE || message.getStatus() == MoveDelta.Status.STALEMATE) {
+            currentGame.setGameOver(true);
+        }
+        printBoard();
+    }
+
+    private void requestResync() {
+        resyncRequested = true;
+        sender.sendCommand(new Resync(authToken, gameId));
+    }
+
+    private void printBoard() {
+        System.out.println();
+        boolean whiteOnBottom = isObserver || playerColor == ChessGame.TeamColor.WHITE;
+        new ChessBoardDrawer(currentGame.getBoard()).print(whiteOnBottom);
+    }
+
 
     private void handleNotification(Notification message) {
         System.out.println(message.getMessage());
@@ -190,7 +225,7 @@ public class Gameplay implements ServerMessageHandler {
             System.out.println("Invalid position. Use format like e2.");
             return null;
         }
-        return new ChessPosition(row - '0', col - 'a' + 1);
+        return ChessPosition.of(row - '0', col - 'a' + 1);
     }
 
     private void printHelp() {
@@ -5,6 +5,8 @@ public class Main {
     public static void main(String[] args) {
         Server server = new Server();
         int port = server.run(0); // 0 means OS picks free port
+        // stopping the server writes out games still held in memory
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
         System.out.println("♕ 240 Chess Server running on port: " + port);
 
         // Save the port somewhere accessible to client, e.g. a file or system property
@@ -0,0 +1,165 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers auth token lookups in front of another AuthDAO, so the token sent with
+ * every websocket command is not looked up in MySQL each time.
+ * <p>
+ * Valid tokens are remembered for the TTL and unknown tokens for the shorter negative
+ * TTL, so a client retrying a bad token does not reach the database either. A token
+ * that expires in the database can still be accepted for up to the TTL. Up to maxSize
+ * tokens are kept, dropping the least recently used. Logging out and clearing take
+ * effect immediately.
+ */
+public class CachingAuthDAO implements AuthDAO {
+
+    /**
+     * A snapshot of the cache's counters
+     */
+    public record Stats(int size, long hits, long negativeHits, long misses, long evictions) {
+    }
+
+    //auth is null for a token the underlying DAO did not know
+    private record Entry(AuthData auth, long expiresAt) {
+    }
+
+    private final AuthDAO delegate;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final int maxSize;
+    //access ordered, so iteration starts at the least recently used token
+    private final LinkedHashMap<String, Entry> tokens;
+    //bumped whenever tokens are added or removed, so a lookup that started before is not cached
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param ttlMillis         how long a valid token is remembered
+     * @param negativeTtlMillis how long an unknown token is remembered, 0 to not remember them
+     * @param maxSize           most tokens remembered at once
+     */
+    public CachingAuthDAO(AuthDAO delegate, long ttlMillis, long negativeTtlMillis, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Auth cache needs room for at least one token");
+        }
+        this.delegate = delegate;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.maxSize = maxSize;
+        this.tokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > CachingAuthDAO.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Wraps the DAO in a cache set up by db.authCache.ttlMs (default 60000),
+     * db.authCache.negativeTtlMs (default 5000) and db.authCache.size (default 1024)
+     * from db.properties, or returns it as is when the size is 0
+     */
+    public static AuthDAO fromProperties(AuthDAO delegate) {
+        int size = DatabaseManager.getIntProperty("db.authCache.size", 1024);
+        if (size <= 0) {
+            return delegate;
+        }
+        return new CachingAuthDAO(delegate, DatabaseManager.getIntProperty("db.authCache.ttlMs", 60_000),
+                DatabaseManager.getIntProperty("db.authCache.negativeTtlMs", 5000), size);
+    }
+
+    @Override
+    public void createAuth(AuthData authData) throws DataAccessException {
+        delegate.createAuth(authData);
+        //the token may have been looked up and remembered as unknown before it existed
+        invalidate(authData.authToken());
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        if (authToken == null) {
+            return delegate.getAuth(null);
+        }
+        long now = System.currentTimeMillis();
+        long lookupGeneration;
+        synchronized (tokens) {
+            Entry entry = tokens.get(authToken);
+            if (entry != null && entry.expiresAt() > now) {
+                if (entry.auth() == null) {
+                    negativeHits.incrementAndGet();
+                } else {
+                    hits.incrementAndGet();
+                }
+                return entry.auth();
+            }
+            lookupGeneration = generation;
+        }
+        misses.incrementAndGet();
+
+        AuthData auth = delegate.getAuth(authToken);
+        long ttl = auth != null ? ttlMillis : negativeTtlMillis;
+        if (ttl > 0) {
+            synchronized (tokens) {
+                if (generation == lookupGeneration) {
+                    tokens.put(authToken, new Entry(auth, now + ttl));
+                }
+            }
+        }
+        return auth;
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        //forgetting the token afterwards also stops lookups that raced the delete from caching it
+        try {
+            delegate.deleteAuth(authToken);
+        } finally {
+            invalidate(authToken);
+        }
+    }
+
+    @Override
+    public void clear() {
+        try {
+            delegate.clear();
+        } finally {
+            invalidate(null);
+        }
+    }
+
+    /**
+     * @return the number of remembered tokens and the cache's counters
+     */
+    public Stats stats() {
+        int size;
+        synchronized (tokens) {
+            size = tokens.size();
+        }
+        return new Stats(size, hits.get(), negativeHits.get(), misses.get(), evictions.get());
+    }
+
+    //Forgets one token, or every token when authToken is null
+    private void invalidate(String authToken) {
+        synchronized (tokens) {
+            generation++;
+            if (authToken == null) {
+                tokens.clear();
+            } else {
+                tokens.remove(authToken);
+            }
+        }
+    }
+}
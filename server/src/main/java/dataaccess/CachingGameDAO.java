@@ -0,0 +1,172 @@
+package dataaccess;
+
+import model.GameData;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves games from memory in front of another GameDAO, so the games being played and
+ * watched are not read back from MySQL on every command.
+ * <p>
+ * Up to maxSize games are kept, dropping the least recently used. Updates are written
+ * to the underlying DAO first and then cached, so the cache never holds a game the
+ * underlying DAO does not. Games are copied on the way in and out, since callers
+ * change the game they are given before passing it to updateGame.
+ * <p>
+ * {@link WriteBehindGameDAO} already keeps a bounded set of games in memory, so this
+ * is only for running without write-behind.
+ */
+public class CachingGameDAO implements GameDAO, AutoCloseable {
+
+    /**
+     * A snapshot of the cache's counters
+     */
+    public record Stats(int size, long hits, long misses, long evictions) {
+    }
+
+    private final GameDAO delegate;
+    private final int maxSize;
+    //access ordered, so iteration starts at the least recently used game
+    private final LinkedHashMap<Integer, GameData> games;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CachingGameDAO(GameDAO delegate, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Game cache needs room for at least one game");
+        }
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.games = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, GameData> eldest) {
+                if (size() > CachingGameDAO.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Wraps the DAO in a cache of db.gameCache.size games from db.properties (default
+     * 256), or returns it as is when the size is 0
+     */
+    public static GameDAO fromProperties(GameDAO delegate) {
+        int size = DatabaseManager.getIntProperty("db.gameCache.size", 256);
+        return size > 0 ? new CachingGameDAO(delegate, size) : delegate;
+    }
+
+    @Override
+    public void createGame(GameData gameData) throws DataAccessException {
+        delegate.createGame(gameData);
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        GameData cached;
+        synchronized (games) {
+            cached = games.get(gameID);
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return copyOf(cached);
+        }
+        misses.incrementAndGet();
+        GameData loaded = copyOf(delegate.getGame(gameID));
+        synchronized (games) {
+            //an update that landed while this was loading is newer, keep it
+            cached = games.putIfAbsent(gameID, loaded);
+        }
+        return copyOf(cached != null ? cached : loaded);
+    }
+
+    @Override
+    public Collection<GameData> listGames() {
+        return delegate.listGames();
+    }
+
+    @Override
+    public boolean gameExists(int gameID) {
+        synchronized (games) {
+            if (games.containsKey(gameID)) {
+                return true;
+            }
+        }
+        return delegate.gameExists(gameID);
+    }
+
+    @Override
+    public void updateGame(GameData gameData) throws DataAccessException {
+        try {
+            delegate.updateGame(gameData);
+        } catch (DataAccessException | RuntimeException e) {
+            invalidate(gameData.gameID());
+            throw e;
+        }
+        GameData snapshot = copyOf(gameData);
+        synchronized (games) {
+            games.put(gameData.gameID(), snapshot);
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (games) {
+            games.clear();
+        }
+        delegate.clear();
+    }
+
+    @Override
+    public void flush() throws DataAccessException {
+        delegate.flush();
+    }
+
+    /**
+     * Closes the underlying DAO if it needs closing
+     */
+    @Override
+    public void close() throws DataAccessException {
+        if (delegate instanceof WriteBehindGameDAO writeBehind) {
+            writeBehind.close();
+        } else if (delegate instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                throw new DataAccessException("Error closing game storage", e);
+            }
+        }
+    }
+
+    /**
+     * @return the number of cached games and the cache's counters
+     */
+    public Stats stats() {
+        int size;
+        synchronized (games) {
+            size = games.size();
+        }
+        return new Stats(size, hits.get(), misses.get(), evictions.get());
+    }
+
+    private void invalidate(int gameID) {
+        synchronized (games) {
+            games.remove(gameID);
+        }
+    }
+
+    private static GameData copyOf(GameData data) {
+        if (data.game() == null) {
+            return data;
+        }
+        return new GameData(data.gameID(), data.whiteUsername(), data.blackUsername(), data.gameName(),
+                data.game().copy());
+    }
+}
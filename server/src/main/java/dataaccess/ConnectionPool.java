@@ -0,0 +1,378 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of JDBC connections, so DAO calls reuse open connections instead of
+ * doing a full MySQL handshake each time.
+ * <p>
+ * Callers use the connections exactly like unpooled ones, closing them with
+ * try-with-resources. Closing hands the connection back to the pool instead of
+ * closing the socket. At most maxSize connections exist; a borrower waits up to the
+ * borrow timeout for one to free up and then gets an SQLTimeoutException.
+ * <p>
+ * Connections that sat idle longer than the validation window are checked with
+ * {@link Connection#isValid(int)} before they are handed out. A background thread
+ * keeps at least minSize connections open, closes extra ones idle longer than the
+ * idle timeout, and reports connections borrowed longer than the leak threshold with
+ * the stack trace of where they were borrowed.
+ * <p>
+ * Each connection also keeps up to statementCacheSize prepared statements open, see
+ * {@link StatementCache}, so repeated {@code prepareStatement(sql)} calls reuse them.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Opens a new physical connection for the pool
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    /**
+     * Pool sizing and timing, all times in milliseconds. A leak threshold of 0 turns
+     * leak detection off, and a statement cache size of 0 turns statement caching off.
+     * Leak detection records a stack trace on every borrow, so only turn it on while
+     * looking for a leak.
+     */
+    public record Settings(int minSize, int maxSize, long borrowTimeout, long idleTimeout,
+                           long validationWindow, long leakThreshold, int statementCacheSize) {
+        public Settings {
+            if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+                throw new IllegalArgumentException("Pool needs 0 <= minSize <= maxSize and maxSize >= 1");
+            }
+            if (statementCacheSize < 0) {
+                throw new IllegalArgumentException("Statement cache size cannot be negative");
+            }
+        }
+    }
+
+    /**
+     * A snapshot of the pool's gauges and counters
+     */
+    public record Stats(int total, int idle, int active, int waiting,
+                        long borrowed, long created, long evicted, long timedOut,
+                        long failedValidation, long leaksReported,
+                        long statementHits, long statementMisses) {
+    }
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final ConnectionFactory factory;
+    private final Settings settings;
+    private final Semaphore permits;
+    //most recently returned first, so busy periods keep reusing the same warm connections
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PooledConnection> active = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger total = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong failedValidation = new AtomicLong();
+    private final AtomicLong leaksReported = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+
+    public ConnectionPool(ConnectionFactory factory, Settings settings) {
+        this.factory = factory;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxSize(), true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(settings.idleTimeout(),
+                settings.leakThreshold() > 0 ? settings.leakThreshold() : Long.MAX_VALUE) / 2);
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout for one to be free.
+     * Close the connection to give it back.
+     *
+     * @throws SQLTimeoutException if no connection freed up in time
+     * @throws SQLException        if a new connection could not be opened
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(settings.borrowTimeout(), TimeUnit.MILLISECONDS)) {
+                timedOut.incrementAndGet();
+                throw new SQLTimeoutException("Timed out after " + settings.borrowTimeout()
+                        + " ms waiting for a database connection (" + settings.maxSize() + " in use)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null) {
+                pooled = open();
+            }
+            pooled.lease();
+            active.add(pooled);
+            borrowed.incrementAndGet();
+            return pooled.proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the current gauges and counters
+     */
+    public Stats stats() {
+        int activeCount = active.size();
+        return new Stats(total.get(), idle.size(), activeCount, permits.getQueueLength(),
+                borrowed.get(), created.get(), evicted.get(), timedOut.get(),
+                failedValidation.get(), leaksReported.get(),
+                statementHits.get(), statementMisses.get());
+    }
+
+    /**
+     * Closes idle connections and stops handing out new ones. Borrowed connections are
+     * closed as they are given back.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    //Takes the most recently used idle connection that is still good, closing bad ones
+    private PooledConnection takeIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            long idleFor = System.currentTimeMillis() - pooled.returnedAt;
+            if (idleFor < settings.validationWindow() || isValid(pooled)) {
+                return pooled;
+            }
+            failedValidation.incrementAndGet();
+            discard(pooled);
+        }
+        return null;
+    }
+
+    private static boolean isValid(PooledConnection pooled) {
+        try {
+            return pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = factory.create();
+        total.incrementAndGet();
+        created.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    //Called when a borrower closes its connection
+    private void giveBack(PooledConnection pooled) {
+        active.remove(pooled);
+        try {
+            if (closed || pooled.physical.isClosed()) {
+                discard(pooled);
+                return;
+            }
+            //undo anything the borrower left behind so the next one starts clean
+            if (pooled.statements != null) {
+                pooled.statements.releaseAll();
+            }
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            pooled.returnedAt = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+        } catch (SQLException e) {
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        total.decrementAndGet();
+        if (pooled.statements != null) {
+            pooled.statements.closeAll();
+        }
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            //the connection is being thrown away either way
+        }
+    }
+
+    private void houseKeep() {
+        //an exception escaping a scheduleWithFixedDelay task cancels every later run
+        try {
+            evictAndTopUp();
+        } catch (RuntimeException e) {
+            System.err.println("Connection pool housekeeping failed: " + e);
+        }
+    }
+
+    private void evictAndTopUp() {
+        long now = System.currentTimeMillis();
+        //oldest idle connections sit at the back of the deque
+        PooledConnection pooled;
+        while (total.get() > settings.minSize() && (pooled = idle.peekLast()) != null
+                && now - pooled.returnedAt > settings.idleTimeout()) {
+            if (idle.removeLastOccurrence(pooled)) {
+                evicted.incrementAndGet();
+                discard(pooled);
+            }
+        }
+
+        //top back up to minSize, holding a permit while opening so the pool never exceeds maxSize
+        while (!closed && total.get() < settings.minSize() && permits.tryAcquire()) {
+            try {
+                PooledConnection fresh = open();
+                fresh.returnedAt = System.currentTimeMillis();
+                idle.offerLast(fresh);
+            } catch (SQLException e) {
+                break;
+            } finally {
+                permits.release();
+            }
+        }
+
+        if (settings.leakThreshold() > 0) {
+            for (PooledConnection lease : active) {
+                if (!lease.leakReported && now - lease.borrowedAt > settings.leakThreshold()) {
+                    lease.leakReported = true;
+                    leaksReported.incrementAndGet();
+                    System.err.println("Possible connection leak: borrowed " + (now - lease.borrowedAt)
+                            + " ms ago and not closed");
+                    lease.borrowSite.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * One physical connection and the proxy borrowers see. The proxy and its handler
+     * are made once per connection and reused for every borrow, so borrowing does not
+     * allocate. A borrower that keeps its reference after closing it gets an error
+     * until the connection is borrowed again.
+     */
+    private class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements;
+        private final Lease lease;
+        private final Connection proxy;
+        private volatile long borrowedAt;
+        private volatile long returnedAt = System.currentTimeMillis();
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = settings.statementCacheSize() > 0
+                    ? new StatementCache(physical, settings.statementCacheSize(), statementHits, statementMisses)
+                    : null;
+            this.lease = new Lease(this);
+            this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, lease);
+        }
+
+        void lease() {
+            borrowedAt = System.currentTimeMillis();
+            leakReported = false;
+            //capturing the stack is only worth it when leaks are being looked for
+            borrowSite = settings.leakThreshold() > 0 ? new Throwable("Connection borrowed here") : null;
+            lease.returned = false;
+        }
+    }
+
+    private class Lease implements InvocationHandler {
+        private final PooledConnection pooled;
+        //true between a borrower closing the connection and the next borrow
+        private volatile boolean returned = true;
+
+        Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        giveBack(pooled);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || pooled.physical.isClosed();
+                }
+                case "prepareStatement" -> {
+                    if (returned) {
+                        throw new SQLException("Connection has been returned to the pool");
+                    }
+                    //only the plain form is cached, the overloads set options the cache would carry over
+                    if (pooled.statements != null && args.length == 1) {
+                        return pooled.statements.prepare((String) args[0], (Connection) proxy);
+                    }
+                    return invokePhysical(method, args);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled " + pooled.physical;
+                }
+                default -> {
+                    if (returned) {
+                        throw new SQLException("Connection has been returned to the pool");
+                    }
+                    return invokePhysical(method, args);
+                }
+            }
+        }
+
+        private Object invokePhysical(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
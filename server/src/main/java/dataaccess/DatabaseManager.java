@@ -9,6 +9,8 @@ public class DatabaseManager {
     private static String dbUsername;
     private static String dbPassword;
     private static String connectionUrl;
+    private static Properties properties;
+    private static volatile ConnectionPool pool;
 
     /*
      * Load the database information for the db.properties file.
@@ -31,9 +33,11 @@ public class DatabaseManager {
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
+     * Borrows a connection to the database from the pool, with the catalog set based
+     * upon the properties specified in db.properties. Connections to the database should
+     * be short-lived, and you must close the connection when you are done with it so it
+     * goes back to the pool. Pool sizes, timeouts and the per-connection statement cache
+     * size come from the db.pool.* properties.
      * The easiest way to do that is with a try-with-resource block.
      * <br/>
      * <code>
@@ -45,14 +49,90 @@ public class DatabaseManager {
     static Connection getConnection() throws DataAccessException {
         try {
             //do not wrap the following line with a try-with-resources
-            var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
-            conn.setCatalog(databaseName);
-            return conn;
+            return pool().getConnection();
         } catch (SQLException ex) {
             throw new DataAccessException("failed to get connection", ex);
         }
     }
 
+    /**
+     * @return gauges and counters of the connection pool
+     */
+    public static ConnectionPool.Stats poolStats() {
+        return pool().stats();
+    }
+
+    //Created on first use, the DAOs create the database before asking for a connection.
+    //Closing a pooled connection returns it to the pool rather than closing it.
+    private static ConnectionPool pool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseManager.class) {
+                if (pool == null) {
+                    pool = new ConnectionPool(DatabaseManager::openConnection, poolSettings());
+                }
+                current = pool;
+            }
+        }
+        return current;
+    }
+
+    private static Connection openConnection() throws SQLException {
+        var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
+        conn.setCatalog(databaseName);
+        return conn;
+    }
+
+    /**
+     * @return the connection pool's settings from the db.pool.* properties
+     */
+    public static ConnectionPool.Settings poolSettings() {
+        return new ConnectionPool.Settings(
+                getIntProperty("db.pool.minSize", 2),
+                getIntProperty("db.pool.maxSize", 10),
+                getIntProperty("db.pool.borrowTimeoutMs", 5000),
+                getIntProperty("db.pool.idleTimeoutMs", 600_000),
+                getIntProperty("db.pool.validationWindowMs", 1000),
+                getIntProperty("db.pool.leakThresholdMs", 0),
+                getIntProperty("db.pool.statementCacheSize", 32));
+    }
+
+    /**
+     * Adds a column to a table created before the column existed, doing nothing if
+     * the table already has it
+     *
+     * @param definition the column's type and constraints, e.g. "INT NOT NULL DEFAULT 0"
+     * @return true if the column was added
+     */
+    static boolean addColumnIfMissing(Connection connection, String table, String column, String definition)
+            throws SQLException {
+        try (var columns = connection.getMetaData().getColumns(connection.getCatalog(), null, table, column)) {
+            if (columns.next()) {
+                return false;
+            }
+        }
+        try (var statement = connection.prepareStatement(
+                "ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition)) {
+            statement.executeUpdate();
+        }
+        return true;
+    }
+
+    static int getIntProperty(String name, int defaultValue) {
+        String value = getProperty(name, null);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Gets an optional setting from db.properties
+     *
+     * @param name         the property name
+     * @param defaultValue returned when db.properties does not set the property
+     */
+    static String getProperty(String name, String defaultValue) {
+        return properties.getProperty(name, defaultValue);
+    }
+
     private static void loadPropertiesFromResources() {
         try (var propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties")) {
             if (propStream == null) {
@@ -67,12 +147,24 @@ public class DatabaseManager {
     }
 
     private static void loadProperties(Properties props) {
+        properties = props;
         databaseName = props.getProperty("db.name");
         dbUsername = props.getProperty("db.user");
         dbPassword = props.getProperty("db.password");
 
         var host = props.getProperty("db.host");
         var port = Integer.parseInt(props.getProperty("db.port"));
-        connectionUrl = String.format("jdbc:mysql://%s:%d", host, port);
+        //server-side prepared statements are parsed once by MySQL and kept open by the pool's statement cache
+        connectionUrl = String.format("jdbc:mysql://%s:%d?useServerPrepStmts=true", host, port);
+
+        //connections already open are to the old database, the next borrow builds a new pool
+        ConnectionPool retired;
+        synchronized (DatabaseManager.class) {
+            retired = pool;
+            pool = null;
+        }
+        if (retired != null) {
+            retired.close();
+        }
     }
 }
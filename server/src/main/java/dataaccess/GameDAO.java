@@ -7,8 +7,11 @@ import java.util.Collection;
 public interface GameDAO {
     void createGame(GameData gameData) throws DataAccessException; //create new game
     GameData getGame(int gameID) throws DataAccessException; //retrieve a specified game with the given gameID
-    Collection<GameData> listGames();//retrieve all games
+    Collection<GameData> listGames();//retrieve all games, the board may be left out, getGame has it
     boolean gameExists(int gameID);
     void updateGame(GameData gameData) throws DataAccessException; //updates game, used when players join game or move is made
     void clear(); //clears from database
+    //writes out updates still held in memory, DAOs that write straight through have nothing to do
+    default void flush() throws DataAccessException {
+    }
 }
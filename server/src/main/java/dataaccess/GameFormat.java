@@ -0,0 +1,25 @@
+package dataaccess;
+
+/**
+ * How SQLGameDAO stores the ChessGame of each row, set with db.gameFormat in
+ * db.properties. Rows written in either format can always be read back, so the setting
+ * can be changed without migrating existing games.
+ */
+public enum GameFormat {
+    /**
+     * Gson JSON in the chessGame TEXT column
+     */
+    JSON,
+    /**
+     * {"fen":"...","gameOver":false} in the chessGame TEXT column, about 70 bytes a game
+     */
+    FEN,
+    /**
+     * ChessGame.toBytes in the chessGameBinary BLOB column, about 34 bytes a game
+     */
+    BINARY;
+
+    static GameFormat fromProperties() {
+        return valueOf(DatabaseManager.getProperty("db.gameFormat", JSON.name()).trim().toUpperCase());
+    }
+}
@@ -6,12 +6,28 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class SQLAuthDAO implements AuthDAO {
 
     private static final String AUTH_TABLE = "auth";
+    //expired tokens are deleted by createAuth at most this often
+    private static final long PURGE_INTERVAL_MS = TimeUnit.MINUTES.toMillis(10);
+
+    //how long a token stays valid after it is created
+    private final long tokenLifetimeSeconds;
+    private final AtomicLong nextPurge = new AtomicLong();
 
     public SQLAuthDAO() {
+        this(TimeUnit.MINUTES.toSeconds(DatabaseManager.getIntProperty("db.auth.tokenLifetimeMinutes", 1440)));
+    }
+
+    /**
+     * @param tokenLifetimeSeconds how long a token stays valid after it is created
+     */
+    public SQLAuthDAO(long tokenLifetimeSeconds) {
+        this.tokenLifetimeSeconds = tokenLifetimeSeconds;
         try {
             DatabaseManager.createDatabase();
             initializeTable();
@@ -25,12 +41,26 @@ public class SQLAuthDAO implements AuthDAO {
                 CREATE TABLE IF NOT EXISTS auth (
                     username VARCHAR(255) NOT NULL,
                     authToken VARCHAR(255) NOT NULL,
-                    PRIMARY KEY (authToken)
+                    expiresAt TIMESTAMP NULL,
+                    PRIMARY KEY (authToken),
+                    INDEX auth_expiresAt (expiresAt)
                 )
                 """;
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(createSQL)) {
-            stmt.executeUpdate();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(createSQL)) {
+                stmt.executeUpdate();
+            }
+            //tokens from before tokens expired get a full lifetime from now
+            if (DatabaseManager.addColumnIfMissing(conn, AUTH_TABLE, "expiresAt", "TIMESTAMP NULL")) {
+                try (PreparedStatement stmt = conn.prepareStatement("CREATE INDEX auth_expiresAt ON auth (expiresAt)")) {
+                    stmt.executeUpdate();
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE auth SET expiresAt = TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP) WHERE expiresAt IS NULL")) {
+                stmt.setLong(1, tokenLifetimeSeconds);
+                stmt.executeUpdate();
+            }
         } catch (SQLException e) {
             throw new DataAccessException("Failed to create auth table", e);
         }
@@ -38,12 +68,16 @@ public class SQLAuthDAO implements AuthDAO {
 
     @Override
     public void createAuth(AuthData auth) throws DataAccessException {
-        String insertSQL = "INSERT INTO auth (username, authToken) VALUES (?, ?)";
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(insertSQL)) {
-            stmt.setString(1, auth.username());
-            stmt.setString(2, auth.authToken());
-            stmt.executeUpdate();
+        String insertSQL = "INSERT INTO auth (username, authToken, expiresAt) " +
+                "VALUES (?, ?, TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP))";
+        try (Connection conn = DatabaseManager.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(insertSQL)) {
+                stmt.setString(1, auth.username());
+                stmt.setString(2, auth.authToken());
+                stmt.setLong(3, tokenLifetimeSeconds);
+                stmt.executeUpdate();
+            }
+            purgeExpiredIfDue(conn);
         } catch (SQLException | DataAccessException e) {
             throw new DataAccessException("Could not insert auth token", e);
         }
@@ -51,7 +85,7 @@ public class SQLAuthDAO implements AuthDAO {
 
     @Override
     public AuthData getAuth(String token) throws DataAccessException {
-        String selectSQL = "SELECT username FROM auth WHERE authToken = ?";
+        String selectSQL = "SELECT username FROM auth WHERE authToken = ? AND expiresAt > CURRENT_TIMESTAMP";
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(selectSQL)) {
             stmt.setString(1, token);
@@ -79,6 +113,39 @@ public class SQLAuthDAO implements AuthDAO {
         }
     }
 
+    /**
+     * Deletes every expired token
+     *
+     * @return the number of tokens deleted
+     */
+    public int purgeExpired() throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            return purgeExpired(conn);
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to purge expired auth tokens", e);
+        }
+    }
+
+    //Logins are frequent enough to drive the purge, so no background thread is needed.
+    //The token is already stored, so a failed purge is only logged and tried again next interval.
+    private void purgeExpiredIfDue(Connection conn) {
+        long now = System.currentTimeMillis();
+        long due = nextPurge.get();
+        if (now >= due && nextPurge.compareAndSet(due, now + PURGE_INTERVAL_MS)) {
+            try {
+                purgeExpired(conn);
+            } catch (SQLException e) {
+                System.err.println("Failed to purge expired auth tokens: " + e.getMessage());
+            }
+        }
+    }
+
+    private static int purgeExpired(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM auth WHERE expiresAt <= CURRENT_TIMESTAMP")) {
+            return stmt.executeUpdate();
+        }
+    }
+
     @Override
     public void clear() {
         String clearSQL = "TRUNCATE TABLE auth";
@@ -3,12 +3,48 @@ package dataaccess;
 
 import model.GameData;
 import chess.ChessGame;
-import com.google.gson.Gson;
+import chess.ChessMove;
+import chess.EncodedMove;
+import serialization.Serializer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
 
 public class SQLGameDAO implements GameDAO {
+    //every game row with one extra row per move logged after its snapshot, in move order.
+    //Moves up to snapshotPly are kept for getMoves but are already in the snapshot, so never replayed
+    private static final String SELECT_GAMES = "SELECT g.gameID, g.whiteUsername, g.blackUsername, g.gameName, " +
+            "g.chessGame, g.chessGameBinary, g.snapshotPly, m.move FROM game g " +
+            "LEFT JOIN game_move m ON m.gameID = g.gameID AND m.ply > g.snapshotPly";
+
+    private final GameFormat format;
+    //0 rewrites the whole game on every update, otherwise moves are appended to game_move
+    //and the game row's snapshot is only rewritten every snapshotEvery moves
+    private final int snapshotEvery;
+
     public SQLGameDAO() {
+        this(GameFormat.fromProperties(), DatabaseManager.getIntProperty("db.moveLog.snapshotEvery", 0));
+    }
+
+    public SQLGameDAO(GameFormat format) {
+        this(format, 0);
+    }
+
+    /**
+     * @param format        how the game row stores the game
+     * @param snapshotEvery 0 to store the whole game on each update, otherwise the
+     *                      number of logged moves between snapshots of the game
+     */
+    public SQLGameDAO(GameFormat format, int snapshotEvery) {
+        this.format = format;
+        this.snapshotEvery = snapshotEvery;
         try {
             DatabaseManager.createDatabase();
         } catch (DataAccessException exception) {
@@ -22,31 +58,43 @@ public class SQLGameDAO implements GameDAO {
                     "blackUsername VARCHAR(255), " +
                     "gameName VARCHAR(255), " +
                     "chessGame TEXT, " +
+                    "chessGameBinary BLOB, " +
+                    "snapshotPly INT NOT NULL DEFAULT 0, " +
                     "PRIMARY KEY (gameID))";
+            String createMoveTableSQL = "CREATE TABLE IF NOT EXISTS game_move (" +
+                    "gameID INT NOT NULL, " +
+                    "ply INT NOT NULL, " +
+                    "move SMALLINT NOT NULL, " +
+                    "playedAt TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3), " +
+                    "PRIMARY KEY (gameID, ply))";
 
             try (var statement = connection.prepareStatement(createTableSQL)) {
                 statement.executeUpdate();
             }
+            try (var statement = connection.prepareStatement(createMoveTableSQL)) {
+                statement.executeUpdate();
+            }
+            DatabaseManager.addColumnIfMissing(connection, "game", "chessGameBinary", "BLOB");
+            DatabaseManager.addColumnIfMissing(connection, "game", "snapshotPly", "INT NOT NULL DEFAULT 0");
         } catch (SQLException | DataAccessException exception) {
             throw new RuntimeException("Error setting up game table: " + exception.getMessage(), exception);
         }
     }
 
+    /**
+     * Lists the games without their boards, which listing does not show. Loading them
+     * would read and replay the move log of every game on each list.
+     */
     @Override
     public HashSet<GameData> listGames() {
         HashSet<GameData> games = new HashSet<>(16);
         try (var conn = DatabaseManager.getConnection()) {
-            String query = "SELECT gameID, whiteUsername, blackUsername, gameName, chessGame FROM game";
+            String query = "SELECT gameID, whiteUsername, blackUsername, gameName FROM game";
             try (var stmt = conn.prepareStatement(query);
                  var resultSet = stmt.executeQuery()) {
-
                 while (resultSet.next()) {
-                    var gameID = resultSet.getInt("gameID");
-                    var whiteUsername = resultSet.getString("whiteUsername");
-                    var blackUsername = resultSet.getString("blackUsername");
-                    var gameName = resultSet.getString("gameName");
-                    var chessGame = deserializeGame(resultSet.getString("chessGame"));
-                    games.add(new GameData(gameID, whiteUsername, blackUsername, gameName, chessGame));
+                    games.add(new GameData(resultSet.getInt("gameID"), resultSet.getString("whiteUsername"),
+                            resultSet.getString("blackUsername"), resultSet.getString("gameName"), null));
                 }
             }
         } catch (SQLException | DataAccessException e) {
@@ -60,13 +108,14 @@ public class SQLGameDAO implements GameDAO {
     public void createGame(GameData game) throws DataAccessException {
         try (var conn = DatabaseManager.getConnection()) {
             try (var statement = conn.prepareStatement("INSERT INTO game " +
-                    "(gameID, whiteUsername, blackUsername, gameName, chessGame) " +
-                    "VALUES(?, ?, ?, ?, ?)")) {
+                    "(gameID, whiteUsername, blackUsername, gameName, chessGame, chessGameBinary, snapshotPly) " +
+                    "VALUES(?, ?, ?, ?, ?, ?, ?)")) {
                 statement.setInt(1, game.gameID());
                 statement.setString(2, game.whiteUsername());
                 statement.setString(3, game.blackUsername());
                 statement.setString(4, game.gameName());
-                statement.setString(5, serializeGame(game.game()));
+                writeGame(statement, 5, game.game());
+                statement.setInt(7, plyOf(game.game()));
                 statement.executeUpdate();
             }
         } catch (SQLException | DataAccessException exception) {
@@ -76,22 +125,19 @@ public class SQLGameDAO implements GameDAO {
 
     @Override
     public GameData getGame(int gameID) throws DataAccessException {
-        String query = "SELECT whiteUsername, blackUsername, gameName, chessGame FROM game WHERE gameID=?";
+        String query = SELECT_GAMES + " WHERE g.gameID=? ORDER BY m.ply";
         try (var conn = DatabaseManager.getConnection();
              var stmt = conn.prepareStatement(query)) {
 
             stmt.setInt(1, gameID);
             try (var resultSet = stmt.executeQuery()) {
-                if (resultSet.next()) {
-                    var whiteUsername = resultSet.getString("whiteUsername");
-                    var blackUsername = resultSet.getString("blackUsername");
-                    var gameName = resultSet.getString("gameName");
-                    var chessGame = deserializeGame(resultSet.getString("chessGame"));
-                    return new GameData(gameID, whiteUsername, blackUsername, gameName, chessGame);
-                } else {
+                List<GameData> found = new ArrayList<>(1);
+                readGames(resultSet, found);
+                if (found.isEmpty()) {
                     // If no game is found, throw DataAccessException
                     throw new DataAccessException("Game not found: " + gameID);
                 }
+                return found.get(0);
             }
         } catch (SQLException e) {
             throw new DataAccessException("Error retrieving game: " + gameID);
@@ -115,23 +161,137 @@ public class SQLGameDAO implements GameDAO {
 
     @Override
     public void updateGame(GameData game) throws DataAccessException {
-        String updateSQL = "UPDATE game SET whiteUsername=?, blackUsername=?, gameName=?, chessGame=? WHERE gameID=?";
+        try (var conn = DatabaseManager.getConnection()) {
+            if (snapshotEvery > 0 && game.game() != null) {
+                appendMoves(conn, game);
+            } else {
+                writeSnapshot(conn, game);
+            }
+        } catch (SQLException | DataAccessException exception) {
+            throw new DataAccessException("Error updating game ", exception);
+        }
+    }
+
+    /**
+     * Gets every move logged for a game, for replaying it. The list starts from the
+     * first move when the game was played with the move log on from the start.
+     *
+     * @param gameID the game to get the moves of
+     * @return the moves in the order they were played
+     */
+    public List<ChessMove> getMoves(int gameID) throws DataAccessException {
+        List<ChessMove> moves = new ArrayList<>();
         try (var conn = DatabaseManager.getConnection();
-             var stmt = conn.prepareStatement(updateSQL)) {
+             var stmt = conn.prepareStatement("SELECT move FROM game_move WHERE gameID=? ORDER BY ply")) {
+            stmt.setInt(1, gameID);
+            try (var resultSet = stmt.executeQuery()) {
+                while (resultSet.next()) {
+                    moves.add(EncodedMove.toChessMove(resultSet.getInt("move")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error retrieving moves of game: " + gameID, e);
+        }
+        return moves;
+    }
 
+    //Rewrites the whole game row, making the game's current position the snapshot
+    private void writeSnapshot(Connection conn, GameData game) throws SQLException, DataAccessException {
+        String updateSQL = "UPDATE game SET whiteUsername=?, blackUsername=?, gameName=?, chessGame=?, " +
+                "chessGameBinary=?, snapshotPly=? WHERE gameID=?";
+        try (var stmt = conn.prepareStatement(updateSQL)) {
             stmt.setString(1, game.whiteUsername());
             stmt.setString(2, game.blackUsername());
             stmt.setString(3, game.gameName());
-            stmt.setString(4, serializeGame(game.game()));
-            stmt.setInt(5, game.gameID());
+            writeGame(stmt, 4, game.game());
+            stmt.setInt(6, plyOf(game.game()));
+            stmt.setInt(7, game.gameID());
 
             int affectedRows = stmt.executeUpdate();
             if (affectedRows == 0) {
                 throw new DataAccessException("No game found with gameID: " + game.gameID());
             }
+        }
+    }
 
-        } catch (SQLException | DataAccessException exception) {
-            throw new DataAccessException("Error updating game ", exception);
+    //Logs the moves played since the last update, snapshotting when enough have built up
+    //or when the stored moves cannot be brought up to date from the game's history
+    private void appendMoves(Connection conn, GameData game) throws SQLException, DataAccessException {
+        ChessGame chessGame = game.game();
+        String storedSQL = "SELECT whiteUsername, blackUsername, gameName, snapshotPly, " +
+                "(SELECT MAX(ply) FROM game_move WHERE gameID=?) AS loggedPly FROM game WHERE gameID=? FOR UPDATE";
+        conn.setAutoCommit(false);
+        try {
+            int snapshotPly;
+            int storedPly;
+            boolean detailsChanged;
+            try (var stmt = conn.prepareStatement(storedSQL)) {
+                stmt.setInt(1, game.gameID());
+                stmt.setInt(2, game.gameID());
+                try (var resultSet = stmt.executeQuery()) {
+                    if (!resultSet.next()) {
+                        throw new DataAccessException("No game found with gameID: " + game.gameID());
+                    }
+                    snapshotPly = resultSet.getInt("snapshotPly");
+                    storedPly = Math.max(snapshotPly, resultSet.getInt("loggedPly"));
+                    detailsChanged = !Objects.equals(resultSet.getString("whiteUsername"), game.whiteUsername())
+                            || !Objects.equals(resultSet.getString("blackUsername"), game.blackUsername())
+                            || !Objects.equals(resultSet.getString("gameName"), game.gameName());
+                }
+            }
+
+            int[] history = chessGame.getMoveHistory();
+            int historyStart = chessGame.getPly() - history.length;
+            boolean canAppend = historyStart <= storedPly && storedPly <= chessGame.getPly();
+            //game over is not a move, so ending a game is stored with a snapshot
+            if (!canAppend || chessGame.getPly() - snapshotPly >= snapshotEvery || chessGame.isGameOver()) {
+                if (canAppend) {
+                    insertMoves(conn, game.gameID(), history, historyStart, storedPly);
+                } else {
+                    //moves past the snapshot belong to a line that was taken back
+                    try (var stmt = conn.prepareStatement("DELETE FROM game_move WHERE gameID=? AND ply > ?")) {
+                        stmt.setInt(1, game.gameID());
+                        stmt.setInt(2, chessGame.getPly());
+                        stmt.executeUpdate();
+                    }
+                }
+                writeSnapshot(conn, game);
+            } else {
+                insertMoves(conn, game.gameID(), history, historyStart, storedPly);
+                if (detailsChanged) {
+                    try (var stmt = conn.prepareStatement(
+                            "UPDATE game SET whiteUsername=?, blackUsername=?, gameName=? WHERE gameID=?")) {
+                        stmt.setString(1, game.whiteUsername());
+                        stmt.setString(2, game.blackUsername());
+                        stmt.setString(3, game.gameName());
+                        stmt.setInt(4, game.gameID());
+                        stmt.executeUpdate();
+                    }
+                }
+            }
+            conn.commit();
+        } catch (SQLException | DataAccessException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    //Inserts the history moves numbered after storedPly, history[0] being move historyStart + 1
+    private static void insertMoves(Connection conn, int gameID, int[] history, int historyStart, int storedPly)
+            throws SQLException {
+        if (historyStart + history.length <= storedPly) {
+            return;
+        }
+        try (var stmt = conn.prepareStatement("INSERT INTO game_move (gameID, ply, move) VALUES (?, ?, ?)")) {
+            for (int ply = storedPly + 1; ply <= historyStart + history.length; ply++) {
+                stmt.setInt(1, gameID);
+                stmt.setInt(2, ply);
+                stmt.setInt(3, history[ply - historyStart - 1]);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
         }
     }
 
@@ -141,16 +301,70 @@ public class SQLGameDAO implements GameDAO {
             try (var stmt = conn.prepareStatement("TRUNCATE game")) {
                 stmt.executeUpdate();
             }
+            try (var stmt = conn.prepareStatement("TRUNCATE game_move")) {
+                stmt.executeUpdate();
+            }
         } catch (SQLException | DataAccessException e) {
             throw new RuntimeException("Error clearing the game table: " + e.getMessage(), e);
         }
     }
 
+    //Sets the chessGame and chessGameBinary parameters starting at index, leaving the unused one null
+    private void writeGame(PreparedStatement statement, int index, ChessGame game) throws SQLException {
+        if (format == GameFormat.BINARY && game != null) {
+            statement.setNull(index, Types.LONGVARCHAR);
+            statement.setBytes(index + 1, game.toBytes());
+        } else {
+            statement.setString(index, serializeGame(game));
+            statement.setNull(index + 1, Types.BLOB);
+        }
+    }
+
+    //Reads SELECT_GAMES rows, replaying each game's logged moves onto its snapshot
+    private void readGames(ResultSet resultSet, Collection<GameData> games) throws SQLException {
+        GameData current = null;
+        while (resultSet.next()) {
+            int gameID = resultSet.getInt("gameID");
+            if (current == null || current.gameID() != gameID) {
+                if (current != null) {
+                    games.add(current);
+                }
+                ChessGame chessGame = readGame(resultSet);
+                if (chessGame != null) {
+                    chessGame.setPly(resultSet.getInt("snapshotPly"));
+                }
+                current = new GameData(gameID, resultSet.getString("whiteUsername"),
+                        resultSet.getString("blackUsername"), resultSet.getString("gameName"), chessGame);
+            }
+            int move = resultSet.getInt("move");
+            if (!resultSet.wasNull() && current.game() != null) {
+                current.game().doMove(move);
+            }
+        }
+        if (current != null) {
+            games.add(current);
+        }
+    }
+
+    private static int plyOf(ChessGame game) {
+        return game == null ? 0 : game.getPly();
+    }
+
+    //Reads whichever column the row was written with, so rows from either format load
+    private ChessGame readGame(ResultSet resultSet) throws SQLException {
+        byte[] binary = resultSet.getBytes("chessGameBinary");
+        if (binary != null) {
+            return ChessGame.fromBytes(binary);
+        }
+        return deserializeGame(resultSet.getString("chessGame"));
+    }
+
     private String serializeGame(ChessGame game) {
-        return new Gson().toJson(game);
+        return (format == GameFormat.FEN ? Serializer.FEN_GSON : Serializer.GSON).toJson(game);
     }
 
     private ChessGame deserializeGame(String serializedGame) {
-        return new Gson().fromJson(serializedGame, ChessGame.class);
+        //reads both the full and the FEN form, so chessGame text from either format loads
+        return Serializer.GSON.fromJson(serializedGame, ChessGame.class);
     }
 }
\ No newline at end of file
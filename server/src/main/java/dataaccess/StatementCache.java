@@ -0,0 +1,196 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps one pooled connection's prepared statements open between borrows, keyed by
+ * their SQL text, so the queries the DAOs run on every request are parsed once per
+ * connection instead of once per call.
+ * <p>
+ * Borrowers get a proxy whose close() clears the parameters and hands the statement
+ * back to the cache. The least recently used statement is closed once more than
+ * capacity are cached. Only parameters are reset between uses, so callers should not
+ * change statement settings such as the fetch size or query timeout.
+ * <p>
+ * Like the connection it belongs to, a cache is used by one borrower at a time.
+ */
+class StatementCache {
+    private final Connection physical;
+    private final int capacity;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    StatementCache(Connection physical, int capacity, AtomicLong hits, AtomicLong misses) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= StatementCache.this.capacity) {
+                    return false;
+                }
+                //a statement still in use is closed when it comes back instead
+                eldest.getValue().evicted = true;
+                if (eldest.getValue().checkout == null) {
+                    eldest.getValue().closeQuietly();
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Gets a prepared statement for the SQL, reusing the cached one when it is free
+     *
+     * @param sql   the statement text, used as the cache key
+     * @param owner the connection proxy the statement should report as its connection
+     */
+    PreparedStatement prepare(String sql, Connection owner) throws SQLException {
+        CachedStatement cached = statements.get(sql);
+        if (cached != null && cached.checkout != null) {
+            //the borrower already has this statement open, so give it one of its own
+            misses.incrementAndGet();
+            return physical.prepareStatement(sql);
+        }
+        if (cached == null) {
+            misses.incrementAndGet();
+            cached = new CachedStatement(sql, physical.prepareStatement(sql));
+            statements.put(sql, cached);
+        } else {
+            hits.incrementAndGet();
+        }
+        Checkout checkout = new Checkout(cached, owner);
+        cached.checkout = checkout;
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, checkout);
+    }
+
+    /**
+     * Takes back statements the borrower left open, called when the connection is
+     * returned to the pool
+     */
+    void releaseAll() {
+        for (CachedStatement cached : new ArrayList<>(statements.values())) {
+            if (cached.checkout != null) {
+                cached.checkout.release();
+            }
+        }
+    }
+
+    /**
+     * Closes every cached statement, called when the connection is discarded
+     */
+    void closeAll() {
+        for (CachedStatement cached : statements.values()) {
+            cached.closeQuietly();
+        }
+        statements.clear();
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    private class CachedStatement {
+        private final String sql;
+        private final PreparedStatement physical;
+        private Checkout checkout;
+        private boolean evicted;
+
+        CachedStatement(String sql, PreparedStatement physical) {
+            this.sql = sql;
+            this.physical = physical;
+        }
+
+        void closeQuietly() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                //the statement is being thrown away either way
+            }
+        }
+    }
+
+    //One use of a cached statement, so a caller that keeps the proxy after closing it
+    //cannot touch the statement the next caller has
+    private class Checkout implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection owner;
+        private boolean closed;
+
+        Checkout(CachedStatement cached, Connection owner) {
+            this.cached = cached;
+            this.owner = owner;
+        }
+
+        void release() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            cached.checkout = null;
+            if (cached.evicted) {
+                cached.closeQuietly();
+                return;
+            }
+            //rows batched by a borrower that failed before executeBatch would otherwise run for the next one
+            try {
+                cached.physical.clearParameters();
+                cached.physical.clearBatch();
+                cached.physical.clearWarnings();
+            } catch (SQLException e) {
+                //a statement that cannot be reset is not worth keeping
+                statements.remove(cached.sql, cached);
+                cached.closeQuietly();
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    release();
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed || cached.physical.isClosed();
+                }
+                case "getConnection" -> {
+                    return owner;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Cached " + cached.physical;
+                }
+                default -> {
+                    if (closed) {
+                        throw new SQLException("Statement is closed");
+                    }
+                    try {
+                        return method.invoke(cached.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            }
+        }
+    }
+}
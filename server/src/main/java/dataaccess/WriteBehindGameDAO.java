@@ -0,0 +1,294 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the games being played in memory and writes them to another GameDAO in the
+ * background, so a move is applied and broadcast without waiting on the database.
+ * <p>
+ * updateGame only records the new state. A background thread writes every game that
+ * changed since the last write every flush interval, or sooner once batchSize games
+ * are waiting, so a game that moves several times between writes is written once.
+ * {@link #flush()} writes everything waiting before returning, call it when a game
+ * ends and before shutting down.
+ * <p>
+ * Games are copied on the way in and out, so the copy waiting to be written never
+ * changes under the writer. Creating and clearing games goes straight to the
+ * underlying DAO.
+ * <p>
+ * Since it already holds the active games, this is also the game cache: at most
+ * maxSize games are kept, dropping the least recently used games that have been
+ * written. Games still waiting to be written are never dropped, so the count can go
+ * over maxSize until they are.
+ */
+public class WriteBehindGameDAO implements GameDAO, AutoCloseable {
+
+    /**
+     * A snapshot of the cache's counters
+     */
+    public record Stats(int size, long hits, long misses, long evictions) {
+    }
+
+    //games not used for this long are dropped from memory
+    private static final long IDLE_EVICT_MS = TimeUnit.MINUTES.toMillis(10);
+
+    //version counts updates, written is the version last stored by the underlying DAO
+    private record Entry(GameData data, long version, long written, long touchedAt) {
+        boolean dirty() {
+            return version != written;
+        }
+    }
+
+    private final GameDAO delegate;
+    private final int batchSize;
+    private final int maxSize;
+    private final Map<Integer, Entry> games = new ConcurrentHashMap<>();
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService writer;
+    private final AtomicBoolean batchQueued = new AtomicBoolean();
+    private final Object flushLock = new Object();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param delegate        where games are stored
+     * @param flushIntervalMs longest a changed game waits to be written
+     * @param batchSize       number of waiting games that triggers an early write
+     */
+    public WriteBehindGameDAO(GameDAO delegate, long flushIntervalMs, int batchSize) {
+        this(delegate, flushIntervalMs, batchSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param delegate        where games are stored
+     * @param flushIntervalMs longest a changed game waits to be written
+     * @param batchSize       number of waiting games that triggers an early write
+     * @param maxSize         most games kept in memory once they have been written
+     */
+    public WriteBehindGameDAO(GameDAO delegate, long flushIntervalMs, int batchSize, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Write-behind needs room for at least one game");
+        }
+        this.delegate = delegate;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxSize = maxSize;
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::writeInBackground, flushIntervalMs, flushIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Wraps the DAO in write-behind when db.writeBehind.flushIntervalMs in db.properties
+     * is above 0 (the default is 250), batching by db.writeBehind.batchSize (default 64)
+     * and keeping up to db.gameCache.size games (default 256, 0 for no limit)
+     */
+    public static GameDAO fromProperties(GameDAO delegate) {
+        int interval = DatabaseManager.getIntProperty("db.writeBehind.flushIntervalMs", 250);
+        if (interval <= 0) {
+            return delegate;
+        }
+        int size = DatabaseManager.getIntProperty("db.gameCache.size", 256);
+        return new WriteBehindGameDAO(delegate, interval,
+                DatabaseManager.getIntProperty("db.writeBehind.batchSize", 64), size > 0 ? size : Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void createGame(GameData gameData) throws DataAccessException {
+        delegate.createGame(gameData);
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        long now = System.currentTimeMillis();
+        //refreshing touchedAt keeps games being read at the recently used end
+        Entry entry = games.computeIfPresent(gameID, (id, current) ->
+                new Entry(current.data(), current.version(), current.written(), now));
+        if (entry != null) {
+            hits.incrementAndGet();
+            return copyOf(entry.data());
+        }
+        misses.incrementAndGet();
+        GameData loaded = copyOf(delegate.getGame(gameID));
+        //an update that raced in while loading is newer, keep it
+        entry = games.computeIfAbsent(gameID, id -> new Entry(loaded, 0, 0, now));
+        trimToSize();
+        return copyOf(entry.data());
+    }
+
+    @Override
+    public Collection<GameData> listGames() {
+        Collection<GameData> stored = delegate.listGames();
+        if (stored == null) {
+            return null;
+        }
+        Map<Integer, GameData> merged = new LinkedHashMap<>();
+        for (GameData game : stored) {
+            merged.put(game.gameID(), game);
+        }
+        for (Entry entry : games.values()) {
+            if (entry.dirty()) {
+                merged.put(entry.data().gameID(), copyOf(entry.data()));
+            }
+        }
+        return merged.values();
+    }
+
+    @Override
+    public boolean gameExists(int gameID) {
+        return games.containsKey(gameID) || delegate.gameExists(gameID);
+    }
+
+    @Override
+    public void updateGame(GameData gameData) throws DataAccessException {
+        int gameID = gameData.gameID();
+        if (!games.containsKey(gameID) && !delegate.gameExists(gameID)) {
+            throw new DataAccessException("No game found with gameID: " + gameID);
+        }
+        GameData snapshot = copyOf(gameData);
+        games.compute(gameID, (id, entry) -> entry == null
+                ? new Entry(snapshot, 1, 0, System.currentTimeMillis())
+                : new Entry(snapshot, entry.version() + 1, entry.written(), System.currentTimeMillis()));
+        dirty.add(gameID);
+        trimToSize();
+        if (dirty.size() >= batchSize && batchQueued.compareAndSet(false, true)) {
+            writer.execute(this::writeInBackground);
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (flushLock) {
+            dirty.clear();
+            games.clear();
+            delegate.clear();
+        }
+    }
+
+    /**
+     * Writes every changed game to the underlying DAO before returning
+     *
+     * @throws DataAccessException if a game could not be written, it stays queued
+     */
+    @Override
+    public void flush() throws DataAccessException {
+        DataAccessException failure = writeDirty();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return the number of games in memory and the cache's counters
+     */
+    public Stats stats() {
+        return new Stats(games.size(), hits.get(), misses.get(), evictions.get());
+    }
+
+    /**
+     * Stops the background writer after writing everything still waiting
+     */
+    @Override
+    public void close() throws DataAccessException {
+        writer.shutdownNow();
+        flush();
+    }
+
+    private void writeInBackground() {
+        batchQueued.set(false);
+        DataAccessException failure = writeDirty();
+        if (failure != null) {
+            System.err.println("Write-behind could not store a game, will retry: " + failure.getMessage());
+        }
+        evictIdle();
+    }
+
+    //Writes the latest copy of each changed game, returning the last failure if any
+    private DataAccessException writeDirty() {
+        DataAccessException failure = null;
+        synchronized (flushLock) {
+            //a snapshot, games that fail are queued again and must not be retried in this pass
+            for (Integer gameID : List.copyOf(dirty)) {
+                dirty.remove(gameID);
+                Entry entry = games.get(gameID);
+                if (entry == null || !entry.dirty()) {
+                    continue;
+                }
+                try {
+                    delegate.updateGame(entry.data());
+                    long version = entry.version();
+                    games.computeIfPresent(gameID, (id, current) -> new Entry(current.data(), current.version(),
+                            Math.max(current.written(), version), current.touchedAt()));
+                } catch (DataAccessException | RuntimeException e) {
+                    dirty.add(gameID);
+                    failure = e instanceof DataAccessException dataAccess ? dataAccess
+                            : new DataAccessException("Error writing game " + gameID, e);
+                }
+            }
+        }
+        return failure;
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        for (Integer gameID : games.keySet()) {
+            games.computeIfPresent(gameID, (id, entry) -> !entry.dirty()
+                    && (now - entry.touchedAt() > IDLE_EVICT_MS || isOver(entry.data())) ? null : entry);
+        }
+    }
+
+    //Drops the least recently used written games until at most maxSize are left
+    private void trimToSize() {
+        while (games.size() > maxSize) {
+            Integer oldest = null;
+            long oldestTouch = Long.MAX_VALUE;
+            for (Map.Entry<Integer, Entry> candidate : games.entrySet()) {
+                Entry entry = candidate.getValue();
+                if (!entry.dirty() && entry.touchedAt() < oldestTouch) {
+                    oldest = candidate.getKey();
+                    oldestTouch = entry.touchedAt();
+                }
+            }
+            //everything left is waiting to be written
+            if (oldest == null) {
+                return;
+            }
+            long touch = oldestTouch;
+            if (games.computeIfPresent(oldest, (id, entry) ->
+                    !entry.dirty() && entry.touchedAt() == touch ? null : entry) == null) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static boolean isOver(GameData data) {
+        return data.game() != null && data.game().isGameOver();
+    }
+
+    private static GameData copyOf(GameData data) {
+        ChessGame game = data.game();
+        if (game == null) {
+            return data;
+        }
+        return new GameData(data.gameID(), data.whiteUsername(), data.blackUsername(), data.gameName(),
+                game.copy());
+    }
+}
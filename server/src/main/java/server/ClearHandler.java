@@ -1,6 +1,7 @@
 package server;
 import com.google.gson.Gson;
 import dataaccess.ErrorResponse;
+import serialization.Serializer;
 import service.UserService;
 import service.GameService;
 import spark.Response;
@@ -10,7 +11,7 @@ import spark.Request;
 public class ClearHandler {
     private final UserService userService;
     private final GameService gameService;
-    private final Gson gson = new Gson();
+    private final Gson gson = Serializer.GSON;
 
     public ClearHandler(UserService userService, GameService gameService) {
         this.userService = userService;
@@ -25,7 +26,7 @@ public class ClearHandler {
             return "{}";
         } catch (Exception e) {
             res.status(500);
-            return new Gson().toJson(new ErrorResponse("Error: " + e.getMessage()));
+            return gson.toJson(new ErrorResponse("Error: " + e.getMessage()));
         }
     }
 }
@@ -0,0 +1,63 @@
+package server;
+
+import spark.Route;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how many HTTP requests can be using the database at once. Once request
+ * handlers run on virtual threads nothing else bounds them, and thousands of requests
+ * borrowing connections one DAO call at a time would mostly time out in the pool.
+ * <p>
+ * The pool is shared with websocket commands, the write-behind writer and the pool's
+ * own housekeeping, none of which go through the gate. So the gate is given fewer
+ * permits than the pool has connections, and a burst of HTTP requests cannot take
+ * the connections moves are stored with. HTTP requests can still wait on the pool
+ * when those other borrowers are busy too, up to the pool's borrow timeout.
+ * <p>
+ * A guarded request holds one permit for its whole run. Requests over the limit wait
+ * up to waitMillis for a permit, parked cheaply on their virtual thread, and are then
+ * turned away with 503.
+ */
+public class DatabaseGate {
+
+    private final Semaphore permits;
+    private final long waitMillis;
+
+    /**
+     * @param permits    most requests using the database at once, less than the pool's maxSize
+     * @param waitMillis longest a request waits for its turn, normally the pool's borrow timeout
+     */
+    public DatabaseGate(int permits, long waitMillis) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("Database gate needs at least one permit");
+        }
+        this.permits = new Semaphore(permits, true);
+        this.waitMillis = waitMillis;
+    }
+
+    /**
+     * @return the route, run only while holding a permit
+     */
+    public Route guard(Route route) {
+        return (req, res) -> {
+            if (!permits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)) {
+                res.status(503);
+                return "{\"message\":\"Error: server busy, try again\"}";
+            }
+            try {
+                return route.handle(req, res);
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    /**
+     * @return the number of requests waiting for a permit
+     */
+    public int waiting() {
+        return permits.getQueueLength();
+    }
+}
@@ -4,13 +4,14 @@ import com.google.gson.Gson;
 import dataaccess.DataAccessException;
 import spark.Request;
 import model.GameData;
+import serialization.Serializer;
 import service.GameService;
 import spark.Response;
 import java.util.Set;
 
 public class GameHandler {
     private final GameService gameService;
-    private final Gson gson = new Gson();
+    private final Gson gson = Serializer.GSON;
 
     public GameHandler(GameService gameService) {
         this.gameService = gameService;
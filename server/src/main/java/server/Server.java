@@ -1,17 +1,56 @@
 package server;
 
 import chess.ChessGame;
-import com.google.gson.Gson;
 import dataaccess.*;
+import serialization.Serializer;
+import server.websocket.GameCommandExecutor;
 import server.websocket.GameCommandProcessor;
+import server.websocket.SessionOutbox;
 import service.GameService;
 import service.UserService;
 import spark.*;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
 import server.websocket.WebSocketHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class Server {
+    //most commands a game can have waiting before more are refused, -Dchess.gameQueueCapacity=64
+    private static final int GAME_QUEUE_CAPACITY = Integer.getInteger("chess.gameQueueCapacity", 64);
+    //-Dchess.executionMode=virtual runs HTTP requests on virtual threads, see DatabaseGate
+    private static final boolean VIRTUAL_THREADS = "virtual".equalsIgnoreCase(System.getProperty("chess.executionMode"));
+    //pooled connections HTTP requests cannot take in virtual mode, -Dchess.dbReservedConnections,
+    //default a quarter of db.pool.maxSize, left for websocket commands and the write-behind writer
+    private static final String RESERVED_CONNECTIONS = "chess.dbReservedConnections";
+    //most virtual threads Jetty starts in virtual mode, -Dchess.httpMaxThreads=10000
+    private static final int HTTP_MAX_THREADS = Integer.getInteger("chess.httpMaxThreads", 10_000);
+    //how often the pool, cache and websocket counters are logged, -Dchess.statsLogMs=60000, 0 never
+    private static final long STATS_LOG_MS = Long.getLong("chess.statsLogMs", 60_000);
+
+    private final boolean virtualThreads;
+    private AuthDAO authDAO;
+    private GameDAO gameDAO;
+    private DatabaseGate gate;
+    private GameCommandExecutor commandExecutor;
+    private ScheduledExecutorService statsLog;
+
+    public Server() {
+        this(VIRTUAL_THREADS);
+    }
+
+    /**
+     * @param virtualThreads true to run HTTP requests on virtual threads, whatever -Dchess.executionMode says
+     */
+    Server(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
 
     public int run(int desiredPort) {
+        useVirtualThreads(virtualThreads);
         Spark.port(desiredPort);
 
         Spark.staticFiles.location("web");
@@ -19,8 +58,13 @@ public class Server {
 
         // DAOs
         UserDAO userDAO = new SQLUserDAO();
-        AuthDAO authDAO = new SQLAuthDAO();
-        GameDAO gameDAO = new SQLGameDAO();
+        //the token sent with every command is looked up in memory, see CachingAuthDAO
+        authDAO = CachingAuthDAO.fromProperties(new SQLAuthDAO());
+        //active games are served from memory and moves are written to MySQL in the background,
+        //see WriteBehindGameDAO. It bounds and counts the games it holds itself, so the LRU cache
+        //only goes in front of MySQL when write-behind is turned off
+        GameDAO storedGames = WriteBehindGameDAO.fromProperties(new SQLGameDAO());
+        gameDAO = storedGames instanceof WriteBehindGameDAO ? storedGames : CachingGameDAO.fromProperties(storedGames);
 
         // services
         UserService userService = new UserService(userDAO ,authDAO);
@@ -32,19 +76,27 @@ public class Server {
         ClearHandler clearHandler = new ClearHandler(userService, gameService);
 
         GameCommandProcessor processor = new GameCommandProcessor(userDAO, authDAO, gameDAO);
-        WebSocketHandler.init(processor);
+        commandExecutor = new GameCommandExecutor(GAME_QUEUE_CAPACITY);
+        WebSocketHandler.init(processor, commandExecutor);
+
+        //with virtual threads only the database limits how many requests run at once
+        ConnectionPool.Settings poolSettings = DatabaseManager.poolSettings();
+        int reserved = Integer.getInteger(RESERVED_CONNECTIONS, Math.max(1, poolSettings.maxSize() / 4));
+        gate = virtualThreads
+                ? new DatabaseGate(Math.max(1, poolSettings.maxSize() - reserved), poolSettings.borrowTimeout())
+                : null;
 
         //endpoints
-        Spark.delete("/db", clearHandler::handleClear);
+        Spark.delete("/db", guard(gate, clearHandler::handleClear));
 
-        Spark.post("/user", userHandler::registrationHandler);
-        Spark.post("/session", userHandler::loginHandler);
-        Spark.delete("/session", userHandler::logoutHandler);
+        Spark.post("/user", guard(gate, userHandler::registrationHandler));
+        Spark.post("/session", guard(gate, userHandler::loginHandler));
+        Spark.delete("/session", guard(gate, userHandler::logoutHandler));
 
-        Spark.get("/game", gameHandler::listGamesHandler);
-        Spark.post("/game", gameHandler::createGameHandler);
-        Spark.put("/game", gameHandler::joinGameHandler);
-        Spark.put("/game/observe", gameHandler::observeGameHandler);
+        Spark.get("/game", guard(gate, gameHandler::listGamesHandler));
+        Spark.post("/game", guard(gate, gameHandler::createGameHandler));
+        Spark.put("/game", guard(gate, gameHandler::joinGameHandler));
+        Spark.put("/game/observe", guard(gate, gameHandler::observeGameHandler));
 
         Spark.exception(Exception.class, (e, req, res) -> {
             if (e instanceof UnauthorizedException) {
@@ -57,24 +109,101 @@ public class Server {
             res.body("{\"message\":\"Error: " + e.getMessage() + "\"}");
         });
 
-        Spark.get("/game/:id", (req, res) -> {
+        Spark.get("/game/:id", guard(gate, (req, res) -> {
             String authToken = req.headers("Authorization");
             int gameID = Integer.parseInt(req.params("id"));
 
             ChessGame game = gameService.getGame(authToken, gameID); // This should validate auth and load game
-            return new Gson().toJson(game.getBoard());
-        });
+            return Serializer.GSON.toJson(game.getBoard());
+        }));
 
 
         //This line initializes the server and can be removed once you have a functioning endpoint 
         Spark.init();
 
         Spark.awaitInitialization();
+        startStatsLog();
         return Spark.port();
     }
 
+    private void startStatsLog() {
+        if (STATS_LOG_MS <= 0) {
+            return;
+        }
+        statsLog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stats-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        statsLog.scheduleWithFixedDelay(() -> System.out.println(statsLine()),
+                STATS_LOG_MS, STATS_LOG_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the counters of the connection pool, the caches in use and the websocket
+     * sessions on one line
+     */
+    String statsLine() {
+        StringBuilder line = new StringBuilder("stats: pool=").append(DatabaseManager.poolStats());
+        if (authDAO instanceof CachingAuthDAO cache) {
+            line.append(" authCache=").append(cache.stats());
+        }
+        if (gameDAO instanceof WriteBehindGameDAO games) {
+            line.append(" games=").append(games.stats());
+        } else if (gameDAO instanceof CachingGameDAO cache) {
+            line.append(" gameCache=").append(cache.stats());
+        }
+        if (gate != null) {
+            line.append(" gateWaiting=").append(gate.waiting());
+        }
+        return line.append(" sessions=").append(WebSocketHandler.sessions().stats())
+                .append(" outboxes=").append(SessionOutbox.stats())
+                .append(" encoding=").append(WebSocketHandler.encodeStats())
+                .toString();
+    }
+
+    /**
+     * Picks the thread pool Jetty is built with. Virtual mode builds every pool thread,
+     * and so request handling and every blocking DAO call, as a virtual thread, with a
+     * cap high enough that the database gate rather than the pool decides how many
+     * requests run at once. Built through the thread factory because Spark runs on
+     * Jetty 9.4, which has no virtual thread executor of its own.
+     */
+    private static void useVirtualThreads(boolean virtual) {
+        EmbeddedJettyFactory factory = new EmbeddedJettyFactory();
+        if (virtual) {
+            QueuedThreadPool pool = new QueuedThreadPool(HTTP_MAX_THREADS, 8, 60_000, -1, null, null,
+                    Thread.ofVirtual().name("http-", 0).factory());
+            pool.setName("http");
+            factory.withThreadPool(pool);
+            System.out.println("HTTP requests run on virtual threads, at most " + pool.getMaxThreads());
+        }
+        //set every run, the factory is shared by every server in this JVM
+        EmbeddedServers.add(EmbeddedServers.defaultIdentifier(), factory);
+    }
+
+    private static Route guard(DatabaseGate gate, Route route) {
+        return gate != null ? gate.guard(route) : route;
+    }
+
     public void stop() {
+        if (statsLog != null) {
+            statsLog.shutdownNow();
+        }
         Spark.stop();
         Spark.awaitStop();
+        //commands already queued finish before their games are written out below
+        if (commandExecutor != null) {
+            commandExecutor.close();
+        }
+        WebSocketHandler.sessions().close();
+        //games still waiting to be written are stored before the server goes away
+        if (gameDAO instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                System.err.println("Failed to store games on shutdown: " + e.getMessage());
+            }
+        }
     }
 }
@@ -5,6 +5,7 @@ import model.UserData;
 import dataaccess.ErrorResponse;
 import com.google.gson.Gson;
 import dataaccess.DataAccessException;
+import serialization.Serializer;
 import service.UserService;
 import spark.Response;
 import spark.Request;
@@ -18,7 +19,7 @@ public class UserHandler {
 
     public UserHandler(UserService userService) {
         this.userService = userService;
-        this.gson = new Gson();
+        this.gson = Serializer.GSON;
     }
 
     public Object registrationHandler(Request req, Response resp) {
@@ -1,3 +1,3 @@
 package server.websocket;
 
-public record ClientInfo(int gameID, String username) {}
+public record ClientInfo(int gameID, String username, boolean moveDeltas) {}
@@ -1,33 +1,24 @@
 package server.websocket;
 
-import chess.ChessGame;
 import org.eclipse.jetty.websocket.api.Session;
+import websocket.messages.LoadGame;
+import websocket.messages.MoveDelta;
 import websocket.messages.ServerMessage;
 
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 
 public class ClientSessionManager {
-    private static final Map<Integer, Set<Session>> GAME_SESSIONS = new ConcurrentHashMap<>();
-    private static final Map<Session, String> SESSION_TO_USERNAME = new ConcurrentHashMap<>();
-    private static final ConcurrentHashMap<Session, ClientInfo> SESSION_INFO = new ConcurrentHashMap<>();
 
-    public static void addToGame(int gameID, Session session, String username) {
-        GAME_SESSIONS.computeIfAbsent(gameID, k -> ConcurrentHashMap.newKeySet()).add(session);
-        SESSION_TO_USERNAME .put(session, username);
+    /**
+     * Puts the session in the game, see {@link SessionRegistry#join}
+     */
+    public static void joinGame(Session session, int gameId, String username, boolean moveDeltas) {
+        WebSocketHandler.sessions().join(session, new ClientInfo(gameId, username, moveDeltas));
     }
 
-    public static void removeFromGame(int gameID, Session session) {
-        Set<Session> sessions = GAME_SESSIONS.getOrDefault(gameID, Set.of());
-        sessions.remove(session);
-        SESSION_TO_USERNAME .remove(session);
-        SESSION_INFO.remove(session);
-    }
-
-    public static void registerSession(Session session, int gameId, String username) {
-        SESSION_INFO.put(session, new ClientInfo(gameId, username));
+    public static void removeFromGame(Session session) {
+        WebSocketHandler.sessions().leave(session);
     }
 
     public static void broadcastToGame(int gameID, ServerMessage message) {
@@ -35,15 +26,53 @@ public class ClientSessionManager {
     }
 
     public static void broadcastToGame(int gameID, ServerMessage message, Session except) {
-        for (Session s : GAME_SESSIONS.getOrDefault(gameID, Set.of())) {
+        Set<Session> sessions = WebSocketHandler.sessions().gameSessions(gameID);
+        if (sessions.isEmpty()) {
+            return;
+        }
+        // encoded once for the whole game, every session gets the same frame
+        String frame = WebSocketHandler.encode(message);
+        boolean replaceable = WebSocketHandler.isReplaceable(message);
+        for (Session s : sessions) {
             if (!s.equals(except)) {
-                WebSocketHandler.sendToSession(s, message);
+                // queued on each session's own outbox, a slow session does not hold up the rest
+                WebSocketHandler.sendFrame(s, frame, replaceable);
             }
         }
     }
 
 
+    /**
+     * Sends the result of a move to everyone in the game: the delta to sessions that
+     * asked for MOVE_DELTA when they connected, the whole game to the rest. Each form
+     * is only encoded if some session needs it.
+     */
+    public static void broadcastMove(int gameID, LoadGame load, MoveDelta delta) {
+        Set<Session> sessions = WebSocketHandler.sessions().gameSessions(gameID);
+        if (sessions.isEmpty()) {
+            return;
+        }
+        String loadFrame = null;
+        String deltaFrame = null;
+        for (Session s : sessions) {
+            ClientInfo info = WebSocketHandler.sessions().info(s);
+            if (info != null && info.moveDeltas()) {
+                if (deltaFrame == null) {
+                    deltaFrame = WebSocketHandler.encode(delta);
+                }
+                // deltas build on each other, so they are never dropped for a newer one
+                WebSocketHandler.sendFrame(s, deltaFrame, false);
+            } else {
+                if (loadFrame == null) {
+                    loadFrame = WebSocketHandler.encode(load);
+                }
+                WebSocketHandler.sendFrame(s, loadFrame, true);
+            }
+        }
+    }
+
     public static String getUsername(Session session) {
-        return SESSION_TO_USERNAME .get(session);
+        ClientInfo info = WebSocketHandler.sessions().info(session);
+        return info != null ? info.username() : null;
     }
 }
\ No newline at end of file
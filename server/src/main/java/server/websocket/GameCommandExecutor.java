@@ -0,0 +1,106 @@
+package server.websocket;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs each game's commands one at a time in the order they arrived, while commands
+ * for different games run in parallel. Each game gets a mailbox that is drained by a
+ * virtual thread while it has commands waiting, so two players moving at once cannot
+ * interleave their read-modify-write of the same game.
+ * <p>
+ * A mailbox holds at most queueCapacity waiting commands. Further commands for that
+ * game are refused until it catches up, so one flooded game cannot use up memory or
+ * hold up the others. Mailboxes are dropped once they are empty.
+ */
+public class GameCommandExecutor implements AutoCloseable {
+
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentHashMap<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final int queueCapacity;
+
+    public GameCommandExecutor(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Each game needs room for at least one waiting command");
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Queues a command behind the game's earlier commands
+     *
+     * @param gameID  the game the command is for
+     * @param command the work to run
+     * @return false if the game already has queueCapacity commands waiting and the
+     * command was not queued
+     */
+    public boolean submit(int gameID, Runnable command) {
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(gameID, Mailbox::new);
+            synchronized (mailbox) {
+                //a mailbox that emptied and was dropped while this thread held it, get the new one
+                if (mailbox.retired) {
+                    continue;
+                }
+                if (mailbox.queue.size() >= queueCapacity) {
+                    return false;
+                }
+                mailbox.queue.add(command);
+                if (!mailbox.running) {
+                    mailbox.running = true;
+                    workers.execute(mailbox::drain);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return number of games with commands waiting or running
+     */
+    public int activeGames() {
+        return mailboxes.size();
+    }
+
+    /**
+     * Stops taking commands, letting the ones already queued finish
+     */
+    @Override
+    public void close() {
+        workers.close();
+    }
+
+    private class Mailbox {
+        private final int gameID;
+        private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+        private boolean running;
+        private boolean retired;
+
+        Mailbox(int gameID) {
+            this.gameID = gameID;
+        }
+
+        void drain() {
+            while (true) {
+                Runnable command;
+                synchronized (this) {
+                    command = queue.poll();
+                    if (command == null) {
+                        running = false;
+                        retired = true;
+                        mailboxes.remove(gameID, this);
+                        return;
+                    }
+                }
+                try {
+                    command.run();
+                } catch (RuntimeException e) {
+                    //one bad command must not stop the game's later commands
+                    System.err.println("Command for game " + gameID + " failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -2,23 +2,22 @@ package server.websocket;
 
 import chess.ChessGame;
 import chess.ChessMove;
-import com.google.gson.Gson;
 import dataaccess.AuthDAO;
 import dataaccess.GameDAO;
 import dataaccess.UserDAO;
 import model.AuthData;
 import model.GameData;
 import org.eclipse.jetty.websocket.api.Session;
+import websocket.commands.Connect;
 import websocket.commands.MakeMove;
 import websocket.commands.UserGameCommand;
 import websocket.messages.ErrorMessage;
 import websocket.messages.LoadGame;
+import websocket.messages.MoveDelta;
 import websocket.messages.Notification;
-import websocket.messages.ServerMessage;
 
 public class GameCommandProcessor {
 
-    private static final Gson GSON = new Gson();
     private final UserDAO userDAO;
     private final AuthDAO authDAO;
     private final GameDAO gameDAO;
@@ -36,6 +35,7 @@ public class GameCommandProcessor {
                 case MAKE_MOVE -> handleMakeMove((MakeMove) command, session);
                 case LEAVE -> handleLeave(command, session);
                 case RESIGN -> handleResign(command, session);
+                case RESYNC -> handleResync(command, session);
                 default -> WebSocketHandler.sendToSession(session, new ErrorMessage("Unknown command type."));
             }
         } catch (Exception e) {
@@ -66,10 +66,10 @@ public class GameCommandProcessor {
         }
 
         try {
-            ClientSessionManager.addToGame(command.getGameID(), session, username);
-            ClientSessionManager.registerSession(session, command.getGameID(), username);
+            boolean moveDeltas = command instanceof Connect connect && connect.wantsMoveDeltas();
+            ClientSessionManager.joinGame(session, command.getGameID(), username, moveDeltas);
 
-            WebSocketHandler.sendToSession(session, new LoadGame(gameData.game()));
+            WebSocketHandler.sendToSession(session, new LoadGame(gameData.game(), gameData.game().getPly()));
 
             String role = (username.equals(gameData.whiteUsername())) ? "White"
                     : (username.equals(gameData.blackUsername())) ? "Black"
@@ -130,25 +130,32 @@ public class GameCommandProcessor {
             );
             gameDAO.updateGame(updatedGameData);
 
-            // Broadcast updated game state
-            ServerMessage load = new LoadGame(game);
-            ClientSessionManager.broadcastToGame(command.getGameID(), load);
+            ChessGame.TeamColor opponentColor = (playerColor == ChessGame.TeamColor.WHITE)
+                    ? ChessGame.TeamColor.BLACK
+                    : ChessGame.TeamColor.WHITE;
+            MoveDelta.Status status = game.isInCheckmate(opponentColor) ? MoveDelta.Status.CHECKMATE
+                    : game.isInStalemate(opponentColor) ? MoveDelta.Status.STALEMATE
+                    : game.isInCheck(opponentColor) ? MoveDelta.Status.CHECK
+                    : MoveDelta.Status.NORMAL;
+
+            // Broadcast updated game state, just the move to clients that keep their own copy
+            ClientSessionManager.broadcastMove(command.getGameID(),
+                    new LoadGame(game, game.getPly()),
+                    new MoveDelta(move, game.getPly(), game.positionKey(), status));
 
             String moveDesc = String.format("%s moved from %s to %s",
                     username, move.startPosition(), move.endPosition());
             ClientSessionManager.broadcastToGame(command.getGameID(), new Notification(moveDesc), session);
 
-            ChessGame.TeamColor opponentColor = (playerColor == ChessGame.TeamColor.WHITE)
-                    ? ChessGame.TeamColor.BLACK
-                    : ChessGame.TeamColor.WHITE;
-
-            if (game.isInCheckmate(opponentColor)) {
+            if (status == MoveDelta.Status.CHECKMATE) {
                 ClientSessionManager.broadcastToGame(command.getGameID(),
                         new Notification("Checkmate! " + playerColor + " wins."));
-            } else if (game.isInStalemate(opponentColor)) {
+                gameDAO.flush();
+            } else if (status == MoveDelta.Status.STALEMATE) {
                 ClientSessionManager.broadcastToGame(command.getGameID(),
                         new Notification("Stalemate! The game is a draw."));
-            } else if (game.isInCheck(opponentColor)) {
+                gameDAO.flush();
+            } else if (status == MoveDelta.Status.CHECK) {
                 ClientSessionManager.broadcastToGame(command.getGameID(),
                         new Notification("Check!"));
             }
@@ -160,6 +167,20 @@ public class GameCommandProcessor {
 
 
 
+    // Sends the whole game again to a client whose copy stopped matching the move deltas
+    public void handleResync(UserGameCommand command, Session session) {
+        try {
+            if (authDAO.getAuth(command.getAuthToken()) == null) {
+                WebSocketHandler.sendToSession(session, new ErrorMessage("Invalid auth token."));
+                return;
+            }
+            ChessGame game = gameDAO.getGame(command.getGameID()).game();
+            WebSocketHandler.sendToSession(session, new LoadGame(game, game.getPly()));
+        } catch (Exception e) {
+            WebSocketHandler.sendToSession(session, new ErrorMessage("Error: " + e.getMessage()));
+        }
+    }
+
     private ChessGame.TeamColor getPlayerColor(GameData gameData, String username) {
         if (username.equals(gameData.whiteUsername())) {
             return ChessGame.TeamColor.WHITE;
@@ -176,7 +197,7 @@ public class GameCommandProcessor {
             String username = authDAO.getAuth(command.getAuthToken()).username();
             GameData gameData = gameDAO.getGame(command.getGameID());
 
-            ClientSessionManager.removeFromGame(command.getGameID(), session);
+            ClientSessionManager.removeFromGame(session);
 
             String whiteUsername = gameData.whiteUsername();
             String blackUsername = gameData.blackUsername();
@@ -234,6 +255,8 @@ public class GameCommandProcessor {
                     gameData.gameName(),
                     game
             ));
+            // a finished game is stored right away rather than waiting for the next batch
+            gameDAO.flush();
 
             String msg = username + " has resigned.";
             ClientSessionManager.broadcastToGame(command.getGameID(), new Notification(msg));
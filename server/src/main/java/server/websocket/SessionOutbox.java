@@ -0,0 +1,159 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The frames waiting to go out to one session, sent one at a time with Jetty's async
+ * send so a slow client only holds up its own queue, never the broadcast loop.
+ * <p>
+ * A LOAD_GAME frame makes any older LOAD_GAME still waiting redundant, so those are
+ * dropped and a lagging client skips straight to the newest board. A session with
+ * more than capacity frames waiting, or whose oldest waiting frame is older than the
+ * lag limit, is disconnected. So is one whose send fails. Either way the session is
+ * taken out of the registry first, so nothing more is broadcast to it, and the client
+ * reconnects and is sent the current game.
+ */
+public class SessionOutbox implements WriteCallback {
+
+    /**
+     * How often lagging sessions have had frames dropped or been disconnected
+     */
+    public record Stats(long framesCoalesced, long sessionsDisconnected) {
+    }
+
+    //a frame and when it was queued, replaceable frames are superseded by newer replaceable ones
+    private record Frame(String text, boolean replaceable, long queuedAt) {
+    }
+
+    private static final AtomicLong FRAMES_COALESCED = new AtomicLong();
+    private static final AtomicLong SESSIONS_DISCONNECTED = new AtomicLong();
+
+    private final Session session;
+    private final int capacity;
+    private final long maxLagMillis;
+    private final Runnable onDisconnect;
+    private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+    private boolean sending;
+    private boolean closed;
+
+    SessionOutbox(Session session, int capacity, long maxLagMillis) {
+        this(session, capacity, maxLagMillis, () -> {
+        });
+    }
+
+    /**
+     * @param onDisconnect removes the session from wherever it is registered, run before
+     *                     a lagging or broken session is closed
+     */
+    SessionOutbox(Session session, int capacity, long maxLagMillis, Runnable onDisconnect) {
+        this.session = session;
+        this.capacity = capacity;
+        this.maxLagMillis = maxLagMillis;
+        this.onDisconnect = onDisconnect;
+    }
+
+    /**
+     * @return how often lagging sessions have been dealt with since the server started
+     */
+    public static Stats stats() {
+        return new Stats(FRAMES_COALESCED.get(), SESSIONS_DISCONNECTED.get());
+    }
+
+    /**
+     * Queues a frame, starting a send if none is in progress
+     *
+     * @param replaceable true for frames a newer replaceable frame makes redundant, i.e. LOAD_GAME
+     */
+    void send(String text, boolean replaceable) {
+        long now = System.currentTimeMillis();
+        String lagging = null;
+        Frame next = null;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (replaceable) {
+                for (Iterator<Frame> frames = queue.iterator(); frames.hasNext(); ) {
+                    if (frames.next().replaceable()) {
+                        frames.remove();
+                        FRAMES_COALESCED.incrementAndGet();
+                    }
+                }
+            }
+            queue.add(new Frame(text, replaceable, now));
+            if (queue.size() > capacity) {
+                lagging = queue.size() + " messages behind";
+            } else if (now - queue.peek().queuedAt() > maxLagMillis) {
+                lagging = (now - queue.peek().queuedAt()) + " ms behind";
+            } else if (!sending) {
+                sending = true;
+                next = queue.poll();
+            }
+            if (lagging != null) {
+                closed = true;
+                queue.clear();
+            }
+        }
+        if (lagging != null) {
+            SESSIONS_DISCONNECTED.incrementAndGet();
+            disconnect("Disconnecting slow client " + session.getRemoteAddress() + ", " + lagging,
+                    1008, "Client too slow, reconnect to resume");
+        } else if (next != null) {
+            write(next);
+        }
+    }
+
+    /**
+     * Drops any waiting frames, called when the session closes
+     */
+    synchronized void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    @Override
+    public void writeSuccess() {
+        WebSocketHandler.frameSent();
+        Frame next;
+        synchronized (this) {
+            next = closed ? null : queue.poll();
+            sending = next != null;
+        }
+        if (next != null) {
+            write(next);
+        }
+    }
+
+    @Override
+    public void writeFailed(Throwable failure) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.clear();
+        }
+        //the client would be left connected but never sent another message
+        disconnect("Failed to send message to " + session.getRemoteAddress() + ", " + failure.getMessage(),
+                1011, "Could not send to client, reconnect to resume");
+    }
+
+    private void disconnect(String log, int statusCode, String reason) {
+        System.err.println(log);
+        onDisconnect.run();
+        session.close(statusCode, reason);
+    }
+
+    private void write(Frame frame) {
+        try {
+            session.getRemote().sendString(frame.text(), this);
+        } catch (RuntimeException e) {
+            writeFailed(e);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every open websocket session, with the game each one has joined and the games'
+ * sessions, so closing a session removes it from everywhere in one place.
+ * <p>
+ * A session is added when it connects and joins a game on CONNECT. Leaving only
+ * removes it from its game, closing or failing removes it entirely. A game's set is
+ * dropped once its last session goes, so games that finished long ago cost nothing.
+ * <p>
+ * With the heartbeat started, sessions that have sent nothing for an interval are
+ * pinged. A session that answers neither pings nor anything else within the idle
+ * timeout is closed and removed, as is one whose socket closed without telling us or
+ * whose ping fails. Jetty's ping blocks until it is written, so each ping is sent from
+ * its own virtual thread and a client with a full send window only holds up itself.
+ */
+public class SessionRegistry implements AutoCloseable {
+
+    /**
+     * A snapshot of the registry's gauges
+     */
+    public record Stats(int liveSessions, int activeGames, long sessionsEvicted) {
+    }
+
+    //info is null until the session joins a game, lastSeen is when it last sent anything
+    private static final class Entry {
+        private final SessionOutbox outbox;
+        private volatile ClientInfo info;
+        private volatile long lastSeen;
+        //a ping is still being written, another one would only queue behind it
+        private final AtomicBoolean pinging = new AtomicBoolean();
+
+        Entry(SessionOutbox outbox, long lastSeen) {
+            this.outbox = outbox;
+            this.lastSeen = lastSeen;
+        }
+    }
+
+    private static final ByteBuffer PING = ByteBuffer.allocate(0);
+
+    private final int outboxCapacity;
+    private final long maxSendLagMillis;
+    private final ConcurrentHashMap<Session, Entry> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Set<Session>> games = new ConcurrentHashMap<>();
+    private final AtomicLong sessionsEvicted = new AtomicLong();
+    private final Executor pinger;
+    private ScheduledExecutorService heartbeat;
+
+    /**
+     * @param outboxCapacity   most frames a session can have waiting, see {@link SessionOutbox}
+     * @param maxSendLagMillis longest a frame can wait to be sent, see {@link SessionOutbox}
+     */
+    public SessionRegistry(int outboxCapacity, long maxSendLagMillis) {
+        this(outboxCapacity, maxSendLagMillis, runnable -> Thread.ofVirtual().name("websocket-ping").start(runnable));
+    }
+
+    /**
+     * @param pinger runs each ping, off the heartbeat thread
+     */
+    SessionRegistry(int outboxCapacity, long maxSendLagMillis, Executor pinger) {
+        this.outboxCapacity = outboxCapacity;
+        this.maxSendLagMillis = maxSendLagMillis;
+        this.pinger = pinger;
+    }
+
+    /**
+     * Adds a newly connected session, not yet in any game
+     */
+    void open(Session session) {
+        sessions.put(session, new Entry(new SessionOutbox(session, outboxCapacity, maxSendLagMillis,
+                () -> remove(session)), System.currentTimeMillis()));
+    }
+
+    /**
+     * Puts the session in the game, taking it out of any game it was in before
+     */
+    void join(Session session, ClientInfo info) {
+        Entry entry = sessions.get(session);
+        if (entry == null) {
+            return;
+        }
+        leave(session);
+        entry.info = info;
+        games.compute(info.gameID(), (id, members) -> {
+            Set<Session> set = members != null ? members : ConcurrentHashMap.newKeySet();
+            set.add(session);
+            return set;
+        });
+        //closed while joining, do not leave it behind in the game
+        if (!sessions.containsKey(session)) {
+            removeFromGame(info.gameID(), session);
+        }
+    }
+
+    /**
+     * Takes the session out of its game, it stays connected
+     */
+    void leave(Session session) {
+        Entry entry = sessions.get(session);
+        ClientInfo info = entry != null ? entry.info : null;
+        if (info == null) {
+            return;
+        }
+        entry.info = null;
+        removeFromGame(info.gameID(), session);
+    }
+
+    /**
+     * Removes the session from its game and the registry and drops its waiting frames
+     *
+     * @return false if the session had already been removed
+     */
+    boolean remove(Session session) {
+        leave(session);
+        Entry entry = sessions.remove(session);
+        if (entry == null) {
+            return false;
+        }
+        entry.outbox.close();
+        return true;
+    }
+
+    /**
+     * Notes that the session is still alive, call for every message and pong it sends
+     */
+    void touch(Session session) {
+        Entry entry = sessions.get(session);
+        if (entry != null) {
+            entry.lastSeen = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * @return the game the session has joined and who it is, null if it has not joined one
+     */
+    ClientInfo info(Session session) {
+        Entry entry = sessions.get(session);
+        return entry != null ? entry.info : null;
+    }
+
+    /**
+     * @return the session's outbox, null once it has closed
+     */
+    SessionOutbox outbox(Session session) {
+        Entry entry = sessions.get(session);
+        return entry != null ? entry.outbox : null;
+    }
+
+    /**
+     * @return the sessions in the game, empty if there are none
+     */
+    Set<Session> gameSessions(int gameID) {
+        return games.getOrDefault(gameID, Set.of());
+    }
+
+    /**
+     * @return the number of sessions in each game that has any
+     */
+    public Map<Integer, Integer> sessionsPerGame() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        games.forEach((id, members) -> counts.put(id, members.size()));
+        return counts;
+    }
+
+    /**
+     * @return the number of open sessions and active games, and how many sessions the
+     * heartbeat has closed since the server started
+     */
+    public Stats stats() {
+        return new Stats(sessions.size(), games.size(), sessionsEvicted.get());
+    }
+
+    /**
+     * Starts pinging quiet sessions every interval and closing those silent for the idle timeout
+     */
+    public synchronized void startHeartbeat(long intervalMillis, long idleTimeoutMillis) {
+        if (heartbeat != null || intervalMillis <= 0) {
+            return;
+        }
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "websocket-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(() -> heartbeat(System.currentTimeMillis(), intervalMillis,
+                idleTimeoutMillis), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the heartbeat, sessions are left open
+     */
+    @Override
+    public synchronized void close() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+            heartbeat = null;
+        }
+    }
+
+    //One pass of the heartbeat at the given time
+    void heartbeat(long now, long intervalMillis, long idleTimeoutMillis) {
+        sessions.forEach((session, entry) -> {
+            long idle = now - entry.lastSeen;
+            if (!session.isOpen()) {
+                evict(session, null);
+            } else if (idle >= idleTimeoutMillis) {
+                evict(session, "No response for " + idle + " ms");
+            } else if (idle >= intervalMillis && entry.pinging.compareAndSet(false, true)) {
+                pinger.execute(() -> ping(session, entry));
+            }
+        });
+    }
+
+    private void ping(Session session, Entry entry) {
+        try {
+            session.getRemote().sendPing(PING.duplicate());
+        } catch (Exception e) {
+            //the socket is broken, close it rather than leave the client connected but unreachable
+            evict(session, "ping failed: " + e.getMessage());
+        } finally {
+            entry.pinging.set(false);
+        }
+    }
+
+    private void removeFromGame(int gameID, Session session) {
+        games.computeIfPresent(gameID, (id, members) -> {
+            members.remove(session);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    //Removes the session, closing it too unless reason is null because it already closed
+    private void evict(Session session, String reason) {
+        if (!remove(session)) {
+            return;
+        }
+        sessionsEvicted.incrementAndGet();
+        if (reason != null) {
+            System.err.println("Closing unresponsive client " + session.getRemoteAddress() + ", " + reason);
+            session.close(1001, "Connection lost, reconnect to resume");
+        }
+    }
+}
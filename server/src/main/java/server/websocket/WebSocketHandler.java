@@ -1,55 +1,81 @@
 package server.websocket;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.*;
-import websocket.commands.*;
+import org.eclipse.jetty.websocket.api.extensions.Frame;
+import serialization.Serializer;
+import websocket.commands.UserGameCommand;
 import websocket.messages.ErrorMessage;
 import websocket.messages.ServerMessage;
 
 import java.io.IOException;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @WebSocket
 public class WebSocketHandler {
 
-    private static final ConcurrentHashMap<Session, String> CLIENTS = new ConcurrentHashMap<>();
+    /**
+     * How much encoding outgoing messages has cost: the number of messages encoded,
+     * the total time spent encoding them and the number of frames sent
+     */
+    public record EncodeStats(long messagesEncoded, long encodeNanos, long framesSent) {
+        public double averageEncodeMicros() {
+            return messagesEncoded == 0 ? 0 : encodeNanos / 1000.0 / messagesEncoded;
+        }
+    }
+
+    //a client further behind than either limit is disconnected, see SessionOutbox
+    private static final int OUTBOX_CAPACITY = Integer.getInteger("chess.outboxCapacity", 64);
+    private static final long MAX_SEND_LAG_MS = Long.getLong("chess.maxSendLagMs", 10_000);
+    //quiet clients are pinged every heartbeat and closed after the idle timeout, 0 turns the heartbeat off
+    private static final long HEARTBEAT_MS = Long.getLong("chess.heartbeatMs", 30_000);
+    private static final long IDLE_TIMEOUT_MS = Long.getLong("chess.idleTimeoutMs", 90_000);
+    private static final SessionRegistry SESSIONS = new SessionRegistry(OUTBOX_CAPACITY, MAX_SEND_LAG_MS);
     private static GameCommandProcessor processor;
+    private static GameCommandExecutor executor;
+    //-Dchess.loadGameFormat=fen sends LOAD_GAME boards as FEN, the client reads either form
+    private static final Gson MESSAGE_GSON = "fen".equalsIgnoreCase(System.getProperty("chess.loadGameFormat"))
+            ? Serializer.FEN_GSON
+            : Serializer.GSON;
+    private static final AtomicLong MESSAGES_ENCODED = new AtomicLong();
+    private static final AtomicLong ENCODE_NANOS = new AtomicLong();
+    private static final AtomicLong FRAMES_SENT = new AtomicLong();
 
-    public static void init(GameCommandProcessor commandProcessor) {
+    public static void init(GameCommandProcessor commandProcessor, GameCommandExecutor commandExecutor) {
         WebSocketHandler.processor = commandProcessor;
+        WebSocketHandler.executor = commandExecutor;
+        SESSIONS.startHeartbeat(HEARTBEAT_MS, IDLE_TIMEOUT_MS);
+    }
+
+    /**
+     * @return the open sessions and the games they have joined
+     */
+    public static SessionRegistry sessions() {
+        return SESSIONS;
     }
 
 
     @OnWebSocketConnect
     public void onConnect(Session session) {
         System.out.println("WebSocket connected: " + session.getRemoteAddress());
-        CLIENTS.put(session, "UNASSIGNED"); // You can map to authToken or gameId
+        SESSIONS.open(session);
     }
 
     @OnWebSocketMessage
     public void onMessage(Session session, String message) throws IOException {
-        Gson gson = new Gson();
-
+        SESSIONS.touch(session);
         try {
-            // Parse just the commandType first
-            JsonObject jsonObject = JsonParser.parseString(message).getAsJsonObject();
-            String commandType = jsonObject.get("commandType").getAsString();
-
-            UserGameCommand command;
-
-            // Deserialize to the correct subclass
-            switch (commandType) {
-                case "CONNECT" -> command = gson.fromJson(message, Connect.class);
-                case "MAKE_MOVE" -> command = gson.fromJson(message, MakeMove.class);
-                case "LEAVE" -> command = gson.fromJson(message, Leave.class);
-                case "RESIGN" -> command = gson.fromJson(message, Resign.class);
-                default -> throw new IllegalArgumentException("Unknown commandType: " + commandType);
+            // The command adapter picks the subclass from commandType as it reads
+            UserGameCommand command = Serializer.GSON.fromJson(message, UserGameCommand.class);
+            if (command == null) {
+                throw new IllegalArgumentException("Empty command");
             }
 
-            processor.execute(session, command);
+            // Commands run on the game's own queue rather than Jetty's thread, one at a time per game
+            if (!executor.submit(command.getGameID(), () -> processor.execute(session, command))) {
+                sendToSession(session, new ErrorMessage("Server busy, too many commands for this game. Try again."));
+            }
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -59,19 +85,67 @@ public class WebSocketHandler {
     @OnWebSocketClose
     public void onClose(Session session, int statusCode, String reason) {
         System.out.println("WebSocket closed: " + reason);
-        CLIENTS.remove(session);
+        SESSIONS.remove(session);
+    }
+
+    // Pongs answering the heartbeat's pings show the client is still there
+    @OnWebSocketFrame
+    public void onFrame(Session session, Frame frame) {
+        if (frame.getType() == Frame.Type.PONG) {
+            SESSIONS.touch(session);
+        }
     }
 
     @OnWebSocketError
     public void onError(Session session, Throwable error) {
         System.err.println("WebSocket error: " + error.getMessage());
+        SESSIONS.remove(session);
     }
     public static void sendToSession(Session session, ServerMessage message) {
-        try {
-            String json = new Gson().toJson(message);
-            session.getRemote().sendString(json);
-        } catch (IOException e) {
-            System.err.println("Failed to send message to session: " + e.getMessage());
+        sendFrame(session, encode(message), isReplaceable(message));
+    }
+
+    /**
+     * Encodes a message into the text frame sent to clients, so a broadcast can encode
+     * once and send the same frame to every session
+     */
+    public static String encode(ServerMessage message) {
+        long start = System.nanoTime();
+        String frame = MESSAGE_GSON.toJson(message);
+        ENCODE_NANOS.addAndGet(System.nanoTime() - start);
+        MESSAGES_ENCODED.incrementAndGet();
+        return frame;
+    }
+
+    /**
+     * Queues a frame made by {@link #encode(ServerMessage)} on the session's outbox.
+     * Returns without waiting for the client, frames for closed sessions are dropped.
+     *
+     * @param replaceable true if a newer replaceable frame makes this one redundant,
+     *                    see {@link #isReplaceable(ServerMessage)}
+     */
+    public static void sendFrame(Session session, String frame, boolean replaceable) {
+        SessionOutbox outbox = SESSIONS.outbox(session);
+        if (outbox != null) {
+            outbox.send(frame, replaceable);
         }
     }
+
+    /**
+     * A client only needs the newest LOAD_GAME, so older ones still waiting to be sent can be dropped
+     */
+    public static boolean isReplaceable(ServerMessage message) {
+        return message.getServerMessageType() == ServerMessage.ServerMessageType.LOAD_GAME;
+    }
+
+    static void frameSent() {
+        FRAMES_SENT.incrementAndGet();
+    }
+
+    /**
+     * @return the cost of encoding messages since the server started
+     */
+    public static EncodeStats encodeStats() {
+        return new EncodeStats(MESSAGES_ENCODED.get(), ENCODE_NANOS.get(), FRAMES_SENT.get());
+    }
 }
@@ -0,0 +1,82 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingAuthDAOTests {
+
+    //answers like SQLAuthDAO, null for unknown tokens, and counts lookups
+    private static class CountingAuthDAO extends MemoryAuthDAO {
+        int lookups;
+
+        @Override
+        public AuthData getAuth(String authToken) throws DataAccessException {
+            lookups++;
+            try {
+                return super.getAuth(authToken);
+            } catch (UnauthorizedException e) {
+                throw e;
+            } catch (DataAccessException e) {
+                return null;
+            }
+        }
+    }
+
+    private CountingAuthDAO stored;
+    private CachingAuthDAO authDAO;
+
+    @BeforeEach
+    void setUp() throws DataAccessException {
+        stored = new CountingAuthDAO();
+        authDAO = new CachingAuthDAO(stored, 60_000, 60_000, 2);
+        authDAO.createAuth(new AuthData("alice", "token-a"));
+    }
+
+    @Test
+    void positiveRepeatedLookupsHitCache() throws DataAccessException {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("alice", authDAO.getAuth("token-a").username());
+        }
+        assertEquals(1, stored.lookups);
+        assertEquals(2, authDAO.stats().hits());
+    }
+
+    @Test
+    void negativeUnknownTokenIsRemembered() throws DataAccessException {
+        assertNull(authDAO.getAuth("bad-token"));
+        assertNull(authDAO.getAuth("bad-token"));
+
+        assertEquals(1, stored.lookups);
+        assertEquals(1, authDAO.stats().negativeHits());
+    }
+
+    @Test
+    void positiveCreatingTokenReplacesNegativeEntry() throws DataAccessException {
+        assertNull(authDAO.getAuth("token-b"));
+        authDAO.createAuth(new AuthData("bob", "token-b"));
+        assertEquals("bob", authDAO.getAuth("token-b").username());
+    }
+
+    @Test
+    void negativeDeletedTokenIsRejectedImmediately() throws DataAccessException {
+        authDAO.getAuth("token-a");
+        authDAO.deleteAuth("token-a");
+        assertNull(authDAO.getAuth("token-a"));
+
+        authDAO.createAuth(new AuthData("alice", "token-c"));
+        authDAO.getAuth("token-c");
+        authDAO.clear();
+        assertNull(authDAO.getAuth("token-c"));
+    }
+
+    @Test
+    void negativeExpiredEntryIsLookedUpAgain() throws DataAccessException, InterruptedException {
+        authDAO = new CachingAuthDAO(stored, 1, 1, 2);
+        authDAO.getAuth("token-a");
+        Thread.sleep(5);
+        authDAO.getAuth("token-a");
+        assertEquals(2, stored.lookups);
+    }
+}
@@ -0,0 +1,82 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import model.GameData;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingGameDAOTests {
+
+    //counts the reads that reach the stored games
+    private static class CountingGameDAO extends MemoryGameDAO {
+        int reads;
+
+        @Override
+        public GameData getGame(int gameID) throws DataAccessException {
+            reads++;
+            return super.getGame(gameID);
+        }
+    }
+
+    private CountingGameDAO stored;
+    private CachingGameDAO gameDAO;
+
+    @BeforeEach
+    void setUp() throws DataAccessException {
+        stored = new CountingGameDAO();
+        gameDAO = new CachingGameDAO(stored, 2);
+        for (int gameID = 1; gameID <= 3; gameID++) {
+            gameDAO.createGame(new GameData(gameID, null, null, "game " + gameID, new ChessGame()));
+        }
+    }
+
+    @Test
+    void positiveRepeatedReadsHitCache() throws DataAccessException {
+        gameDAO.getGame(1);
+        gameDAO.getGame(1);
+        gameDAO.getGame(1);
+
+        assertEquals(1, stored.reads);
+        CachingGameDAO.Stats stats = gameDAO.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+    }
+
+    @Test
+    void positiveUpdatesWriteThrough() throws DataAccessException, InvalidMoveException {
+        GameData game = gameDAO.getGame(1);
+        game.game().makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        gameDAO.updateGame(game);
+
+        assertEquals(ChessGame.TeamColor.BLACK, stored.getGame(1).game().getTeamTurn());
+        assertEquals(ChessGame.TeamColor.BLACK, gameDAO.getGame(1).game().getTeamTurn());
+        assertEquals(1, gameDAO.stats().misses());
+    }
+
+    @Test
+    void positiveEvictsLeastRecentlyUsed() throws DataAccessException {
+        gameDAO.getGame(1);
+        gameDAO.getGame(2);
+        gameDAO.getGame(1);
+        gameDAO.getGame(3);
+        int reads = stored.reads;
+
+        gameDAO.getGame(1);
+        assertEquals(reads, stored.reads, "recently used game should still be cached");
+        gameDAO.getGame(2);
+        assertEquals(reads + 1, stored.reads, "least recently used game should have been evicted");
+        assertEquals(2, gameDAO.stats().evictions());
+    }
+
+    @Test
+    void negativeFailedUpdateIsNotCached() throws DataAccessException {
+        gameDAO.getGame(1);
+        assertThrows(DataAccessException.class,
+                () -> gameDAO.updateGame(new GameData(9, null, null, "missing", new ChessGame())));
+        assertThrows(DataAccessException.class, () -> gameDAO.getGame(9));
+    }
+}
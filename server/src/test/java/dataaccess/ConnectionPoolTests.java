@@ -0,0 +1,259 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTests {
+
+    //stand-in statements that only track how they were used
+    private static class FakeStatement {
+        boolean closed;
+        int parameterClears;
+        int batchedRows;
+
+        PreparedStatement statement() {
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            closed = true;
+                            yield null;
+                        }
+                        case "clearParameters" -> {
+                            parameterClears++;
+                            yield null;
+                        }
+                        case "addBatch" -> {
+                            batchedRows++;
+                            yield null;
+                        }
+                        case "clearBatch" -> {
+                            batchedRows = 0;
+                            yield null;
+                        }
+                        case "isClosed" -> closed;
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        default -> null;
+                    });
+        }
+    }
+
+    //stand-in connections that only track whether they are closed or still valid
+    private static class FakeConnection {
+        boolean closed;
+        boolean valid = true;
+        final List<FakeStatement> prepared = new ArrayList<>();
+
+        Connection connection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            closed = true;
+                            yield null;
+                        }
+                        case "isClosed" -> closed;
+                        case "isValid" -> valid;
+                        case "prepareStatement" -> {
+                            FakeStatement statement = new FakeStatement();
+                            prepared.add(statement);
+                            yield statement.statement();
+                        }
+                        case "getAutoCommit" -> true;
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        default -> null;
+                    });
+        }
+    }
+
+    private final List<FakeConnection> opened = new ArrayList<>();
+    private ConnectionPool pool;
+
+    private ConnectionPool createPool(int maxSize, long validationWindow) {
+        return createPool(maxSize, validationWindow, 0);
+    }
+
+    private ConnectionPool createPool(int maxSize, long validationWindow, int statementCacheSize) {
+        pool = new ConnectionPool(() -> {
+            FakeConnection fake = new FakeConnection();
+            opened.add(fake);
+            return fake.connection();
+        }, new ConnectionPool.Settings(0, maxSize, 50, 60_000, validationWindow, 0, statementCacheSize));
+        return pool;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    void reusesClosedConnections() throws SQLException {
+        createPool(2, 60_000);
+        try (Connection connection = pool.getConnection()) {
+            assertFalse(connection.isClosed());
+        }
+        try (Connection connection = pool.getConnection()) {
+            assertFalse(connection.isClosed());
+        }
+
+        assertEquals(1, opened.size());
+        assertFalse(opened.get(0).closed);
+        ConnectionPool.Stats stats = pool.stats();
+        assertEquals(2, stats.borrowed());
+        assertEquals(1, stats.idle());
+        assertEquals(0, stats.active());
+    }
+
+    @Test
+    void returnedConnectionCannotBeUsed() throws SQLException {
+        createPool(1, 60_000);
+        Connection connection = pool.getConnection();
+        connection.close();
+
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, () -> connection.prepareStatement("SELECT 1"));
+
+        //the connection is handed out again, closing twice must not return it a second time
+        connection.close();
+        try (Connection again = pool.getConnection()) {
+            assertFalse(again.isClosed());
+        }
+        assertEquals(1, opened.size());
+    }
+
+    @Test
+    void borrowTimesOutWhenFull() throws SQLException {
+        createPool(1, 60_000);
+        Connection held = pool.getConnection();
+        assertThrows(SQLTimeoutException.class, () -> pool.getConnection());
+        held.close();
+        assertEquals(1, pool.stats().timedOut());
+
+        try (Connection connection = pool.getConnection()) {
+            assertNotNull(connection);
+        }
+    }
+
+    @Test
+    void housekeepingSurvivesFailedTopUp() throws InterruptedException {
+        int[] attempts = new int[1];
+        pool = new ConnectionPool(() -> {
+            if (attempts[0]++ == 0) {
+                throw new IllegalStateException("driver blew up");
+            }
+            FakeConnection fake = new FakeConnection();
+            opened.add(fake);
+            return fake.connection();
+        }, new ConnectionPool.Settings(1, 1, 50, 2000, 60_000, 0, 0));
+
+        //the first run fails, the next one a period later still tops the pool up
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.stats().idle() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(1, pool.stats().idle());
+    }
+
+    @Test
+    void invalidIdleConnectionIsReplaced() throws SQLException {
+        createPool(1, 0);
+        pool.getConnection().close();
+        opened.get(0).valid = false;
+
+        try (Connection connection = pool.getConnection()) {
+            assertNotNull(connection);
+        }
+        assertEquals(2, opened.size());
+        assertTrue(opened.get(0).closed);
+        assertEquals(1, pool.stats().failedValidation());
+    }
+
+    @Test
+    void closedPoolRefusesBorrows() throws SQLException {
+        createPool(1, 60_000);
+        pool.getConnection().close();
+        pool.close();
+
+        assertTrue(opened.get(0).closed);
+        assertThrows(SQLException.class, () -> pool.getConnection());
+    }
+
+    @Test
+    void reusesCachedStatements() throws SQLException {
+        createPool(1, 60_000, 2);
+        for (int i = 0; i < 3; i++) {
+            try (Connection connection = pool.getConnection();
+                 PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+                assertSame(connection, statement.getConnection());
+            }
+        }
+
+        FakeConnection fake = opened.get(0);
+        assertEquals(1, fake.prepared.size());
+        assertFalse(fake.prepared.get(0).closed);
+        assertEquals(3, fake.prepared.get(0).parameterClears);
+        assertEquals(2, pool.stats().statementHits());
+        assertEquals(1, pool.stats().statementMisses());
+    }
+
+    @Test
+    void unexecutedBatchIsNotCarriedOver() throws SQLException {
+        createPool(1, 60_000, 2);
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO t VALUES (?)")) {
+            statement.setInt(1, 1);
+            statement.addBatch();
+            //the borrower fails here, before executeBatch
+        }
+
+        assertEquals(0, opened.get(0).prepared.get(0).batchedRows);
+    }
+
+    @Test
+    void closedStatementCannotBeUsed() throws SQLException {
+        createPool(1, 60_000, 2);
+        try (Connection connection = pool.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement("SELECT 1");
+            statement.close();
+
+            assertTrue(statement.isClosed());
+            assertThrows(SQLException.class, statement::executeQuery);
+        }
+    }
+
+    @Test
+    void statementCacheEvictsAndClosesWithConnection() throws SQLException {
+        createPool(1, 60_000, 2);
+        try (Connection connection = pool.getConnection()) {
+            for (String sql : List.of("SELECT 1", "SELECT 2", "SELECT 3")) {
+                connection.prepareStatement(sql).close();
+            }
+            //the same SQL open twice at once gets a second statement
+            try (PreparedStatement first = connection.prepareStatement("SELECT 3");
+                 PreparedStatement second = connection.prepareStatement("SELECT 3")) {
+                assertNotSame(first, second);
+            }
+        }
+
+        FakeConnection fake = opened.get(0);
+        assertEquals(4, fake.prepared.size());
+        assertTrue(fake.prepared.get(0).closed, "least recently used statement should be closed");
+        assertFalse(fake.prepared.get(2).closed);
+
+        pool.close();
+        assertTrue(fake.prepared.get(1).closed);
+        assertTrue(fake.prepared.get(2).closed);
+    }
+}
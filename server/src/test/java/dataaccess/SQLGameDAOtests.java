@@ -1,13 +1,25 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
 import model.AuthData;
 import model.GameData;
 import org.junit.jupiter.api.*;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class SQLGameDAOtests {
 
+    private static final ChessMove[] OPENING = {
+            new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null),
+            new ChessMove(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null),
+            new ChessMove(ChessPosition.of(1, 7), ChessPosition.of(3, 6), null),
+            new ChessMove(ChessPosition.of(8, 2), ChessPosition.of(6, 3), null),
+    };
+
     private SQLGameDAO dao;
     private final AuthData testAuth = new AuthData("testUser", "testToken");
 
@@ -94,6 +106,49 @@ class SQLGameDAOtests {
         assertTrue(dao.listGames().isEmpty());
     }
 
+    @Test
+    void moveLogReloadAfterSnapshotPositive() throws DataAccessException, InvalidMoveException {
+        SQLGameDAO moveLog = new SQLGameDAO(GameFormat.BINARY, 3);
+        ChessGame game = new ChessGame();
+        moveLog.createGame(new GameData(8, null, null, "Logged", game.copy()));
+        //the third move writes a snapshot, the fourth is only logged on top of it
+        for (ChessMove move : OPENING) {
+            game.makeMove(move);
+            moveLog.updateGame(new GameData(8, null, null, "Logged", game.copy()));
+        }
+
+        assertSamePosition(game, moveLog.getGame(8).game());
+        assertEquals(List.of(OPENING), moveLog.getMoves(8));
+    }
+
+    @Test
+    void moveLogReloadAfterTakeBackPositive() throws DataAccessException, InvalidMoveException {
+        SQLGameDAO moveLog = new SQLGameDAO(GameFormat.BINARY, 3);
+        ChessGame game = new ChessGame();
+        moveLog.createGame(new GameData(9, null, null, "Taken back", game.copy()));
+        for (ChessMove move : OPENING) {
+            game.makeMove(move);
+            moveLog.updateGame(new GameData(9, null, null, "Taken back", game.copy()));
+        }
+
+        //falls back to a snapshot at ply 2, the moves before it must not be replayed again
+        game.undoMove();
+        game.undoMove();
+        moveLog.updateGame(new GameData(9, null, null, "Taken back", game.copy()));
+        assertSamePosition(game, moveLog.getGame(9).game());
+        assertEquals(List.of(OPENING[0], OPENING[1]), moveLog.getMoves(9));
+
+        game.makeMove(new ChessMove(ChessPosition.of(2, 4), ChessPosition.of(3, 4), null));
+        moveLog.updateGame(new GameData(9, null, null, "Taken back", game.copy()));
+        assertSamePosition(game, moveLog.getGame(9).game());
+    }
+
+    private static void assertSamePosition(ChessGame expected, ChessGame loaded) {
+        assertEquals(expected.getPly(), loaded.getPly());
+        assertEquals(expected.getTeamTurn(), loaded.getTeamTurn());
+        assertEquals(expected.getBoard(), loaded.getBoard());
+    }
+
     @Test
     void clearPositive() throws DataAccessException {
         dao.createGame(new GameData(7, null, null, "ToClear", new ChessGame()));
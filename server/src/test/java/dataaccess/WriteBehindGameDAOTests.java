@@ -0,0 +1,114 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import model.GameData;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindGameDAOTests {
+
+    //counts the writes that reach the stored games
+    private static class CountingGameDAO extends MemoryGameDAO {
+        int updates;
+
+        @Override
+        public void updateGame(GameData updatedGame) throws DataAccessException {
+            updates++;
+            super.updateGame(updatedGame);
+        }
+    }
+
+    private CountingGameDAO stored;
+    private WriteBehindGameDAO gameDAO;
+
+    @BeforeEach
+    void setUp() throws DataAccessException {
+        stored = new CountingGameDAO();
+        //a long interval so only explicit flushes write
+        gameDAO = new WriteBehindGameDAO(stored, 60_000, 100);
+        gameDAO.createGame(new GameData(1, "white", "black", "game", new ChessGame()));
+    }
+
+    @AfterEach
+    void tearDown() throws DataAccessException {
+        gameDAO.close();
+    }
+
+    @Test
+    void positiveUpdatesCoalesceUntilFlush() throws DataAccessException, InvalidMoveException {
+        play(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        assertEquals(ChessGame.TeamColor.BLACK, gameDAO.getGame(1).game().getTeamTurn());
+        assertEquals(ChessGame.TeamColor.WHITE, stored.getGame(1).game().getTeamTurn(),
+                "nothing should be written before a flush");
+
+        play(new ChessMove(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null));
+        assertEquals(0, stored.updates);
+
+        gameDAO.flush();
+        assertEquals(1, stored.updates);
+        assertEquals(gameDAO.getGame(1).game(), stored.getGame(1).game());
+
+        gameDAO.flush();
+        assertEquals(1, stored.updates, "a clean game should not be written again");
+    }
+
+    @Test
+    void positiveReturnsCopies() throws DataAccessException, InvalidMoveException {
+        GameData game = gameDAO.getGame(1);
+        game.game().makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+
+        assertEquals(ChessGame.TeamColor.WHITE, gameDAO.getGame(1).game().getTeamTurn(),
+                "changes only count once passed to updateGame");
+    }
+
+    @Test
+    void negativeUpdateMissingGame() {
+        assertThrows(DataAccessException.class,
+                () -> gameDAO.updateGame(new GameData(2, null, null, "missing", new ChessGame())));
+    }
+
+    @Test
+    void positiveBatchSizeTriggersWrite() throws DataAccessException, InterruptedException {
+        gameDAO.close();
+        gameDAO = new WriteBehindGameDAO(stored, 60_000, 1);
+        gameDAO.updateGame(new GameData(1, "white", null, "game", new ChessGame()));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (stored.getGame(1).blackUsername() != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNull(stored.getGame(1).blackUsername());
+    }
+
+    @Test
+    void positiveBoundDropsOnlyWrittenGames() throws DataAccessException, InterruptedException {
+        gameDAO.close();
+        gameDAO = new WriteBehindGameDAO(stored, 60_000, 100, 2);
+        for (int id = 2; id <= 3; id++) {
+            gameDAO.createGame(new GameData(id, null, null, "game " + id, new ChessGame()));
+        }
+        gameDAO.updateGame(new GameData(1, "white", "black", "changed", new ChessGame()));
+        gameDAO.getGame(2);
+        Thread.sleep(5);
+        gameDAO.getGame(3);
+        assertEquals(2, gameDAO.stats().size(), "game 2 was used least recently and already written");
+        assertEquals(1, gameDAO.stats().evictions());
+
+        gameDAO.getGame(1);
+        gameDAO.getGame(2);
+        WriteBehindGameDAO.Stats stats = gameDAO.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(3, stats.misses());
+        assertEquals("changed", gameDAO.getGame(1).gameName(), "a game waiting to be written is never dropped");
+    }
+
+    private void play(ChessMove move) throws DataAccessException, InvalidMoveException {
+        GameData game = gameDAO.getGame(1);
+        game.game().makeMove(move);
+        gameDAO.updateGame(game);
+    }
+}
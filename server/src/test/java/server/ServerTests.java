@@ -0,0 +1,63 @@
+package server;
+
+import org.junit.jupiter.api.*;
+import spark.Spark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerTests {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private Server server;
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        server = new Server(true);
+        port = server.run(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void positiveVirtualModeServesRequests() throws IOException, InterruptedException {
+        //answers from the same pool the endpoints run on
+        Spark.get("/test/virtual", (req, res) -> Thread.currentThread().isVirtual());
+        assertEquals("true", send("GET", "/test/virtual", null).body());
+
+        assertEquals(200, send("DELETE", "/db", null).statusCode());
+        HttpResponse<String> registered = send("POST", "/user",
+                "{\"username\":\"virtual\",\"password\":\"pass\",\"email\":\"v@mail.com\"}");
+        assertEquals(200, registered.statusCode());
+        assertTrue(registered.body().contains("authToken"));
+    }
+
+    @Test
+    void positiveStatsLineHasEveryCounter() throws IOException, InterruptedException {
+        send("DELETE", "/db", null);
+
+        String line = server.statsLine();
+        for (String counter : new String[]{"pool=", "authCache=", "games=", "gateWaiting=", "sessions=",
+                "outboxes=", "encoding="}) {
+            assertTrue(line.contains(counter), counter + " missing from " + line);
+        }
+    }
+
+    private HttpResponse<String> send(String method, String path, String body)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .method(method, body != null ? HttpRequest.BodyPublishers.ofString(body)
+                        : HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,82 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.jupiter.api.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionOutboxTests {
+
+    //a client that never finishes a send until the test says so
+    private final List<String> written = new ArrayList<>();
+    private final List<WriteCallback> pending = new ArrayList<>();
+    private boolean closed;
+    private Session session;
+
+    @BeforeEach
+    void setUp() {
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(RemoteEndpoint.class.getClassLoader(),
+                new Class<?>[]{RemoteEndpoint.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("sendString") && args.length == 2) {
+                        written.add((String) args[0]);
+                        pending.add((WriteCallback) args[1]);
+                    }
+                    return null;
+                });
+        session = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+                new Class<?>[]{Session.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getRemote" -> remote;
+                    case "close" -> {
+                        closed = true;
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    @Test
+    void positiveSendsOneFrameAtATimeInOrder() {
+        SessionOutbox outbox = new SessionOutbox(session, 10, 60_000);
+        outbox.send("a", false);
+        outbox.send("b", false);
+        assertEquals(List.of("a"), written);
+
+        pending.get(0).writeSuccess();
+        assertEquals(List.of("a", "b"), written);
+    }
+
+    @Test
+    void positiveLaggingClientOnlyGetsNewestBoard() {
+        SessionOutbox outbox = new SessionOutbox(session, 10, 60_000);
+        outbox.send("board 1", true);
+        outbox.send("board 2", true);
+        outbox.send("note", false);
+        outbox.send("board 3", true);
+
+        pending.get(0).writeSuccess();
+        pending.get(1).writeSuccess();
+        assertEquals(List.of("board 1", "note", "board 3"), written);
+        assertFalse(closed);
+    }
+
+    @Test
+    void negativeClientTooFarBehindIsDisconnected() {
+        SessionOutbox outbox = new SessionOutbox(session, 2, 60_000);
+        for (int i = 0; i < 4; i++) {
+            outbox.send("note " + i, false);
+        }
+        assertTrue(closed);
+
+        outbox.send("after", false);
+        pending.get(0).writeSuccess();
+        assertEquals(List.of("note 0"), written);
+    }
+}
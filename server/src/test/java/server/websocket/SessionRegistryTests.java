@@ -0,0 +1,181 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionRegistryTests {
+
+    //pings run on the heartbeat's own thread so the tests can check them straight away
+    private final SessionRegistry registry = new SessionRegistry(10, 60_000, Runnable::run);
+    //sessions the heartbeat pinged, and sessions that were closed or whose socket died
+    private final Set<Session> pinged = ConcurrentHashMap.newKeySet();
+    private final Set<Session> closed = ConcurrentHashMap.newKeySet();
+    //sessions whose sends fail, sessions whose pings fail, and pings that block until the latch opens
+    private final Set<Session> brokenWrites = ConcurrentHashMap.newKeySet();
+    private final Set<Session> brokenPings = ConcurrentHashMap.newKeySet();
+    private final Set<Session> stuckPings = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch unstick = new CountDownLatch(1);
+    private final AtomicInteger stuckAttempts = new AtomicInteger();
+
+    private Session newSession() {
+        Session[] session = new Session[1];
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(RemoteEndpoint.class.getClassLoader(),
+                new Class<?>[]{RemoteEndpoint.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("sendPing")) {
+                        if (brokenPings.contains(session[0])) {
+                            throw new IOException("Broken pipe");
+                        }
+                        if (stuckPings.contains(session[0])) {
+                            stuckAttempts.incrementAndGet();
+                            unstick.await();
+                        }
+                        pinged.add(session[0]);
+                    }
+                    if (method.getName().equals("sendString") && brokenWrites.contains(session[0])) {
+                        ((WriteCallback) args[1]).writeFailed(new IOException("Connection reset"));
+                    }
+                    return null;
+                });
+        session[0] = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+                new Class<?>[]{Session.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getRemote" -> remote;
+                    case "isOpen" -> !closed.contains(proxy);
+                    case "close" -> {
+                        closed.add((Session) proxy);
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+        return session[0];
+    }
+
+    @Test
+    void positiveLastSessionLeavingDropsGame() {
+        Session white = newSession();
+        Session black = newSession();
+        registry.open(white);
+        registry.open(black);
+        registry.join(white, new ClientInfo(1, "white", false));
+        registry.join(black, new ClientInfo(1, "black", true));
+        assertEquals(Map.of(1, 2), registry.sessionsPerGame());
+
+        registry.leave(white);
+        assertNull(registry.info(white));
+        assertEquals(Set.of(black), registry.gameSessions(1));
+
+        registry.remove(black);
+        assertTrue(registry.sessionsPerGame().isEmpty());
+        assertEquals(new SessionRegistry.Stats(1, 0, 0), registry.stats());
+    }
+
+    @Test
+    void positiveJoiningAnotherGameLeavesTheFirst() {
+        Session session = newSession();
+        registry.open(session);
+        registry.join(session, new ClientInfo(1, "player", false));
+        registry.join(session, new ClientInfo(2, "player", false));
+
+        assertEquals(Map.of(2, 1), registry.sessionsPerGame());
+        assertEquals(2, registry.info(session).gameID());
+    }
+
+    @Test
+    void negativeQuietAndDeadSessionsAreEvicted() {
+        Session quiet = newSession();
+        Session dead = newSession();
+        Session active = newSession();
+        for (Session session : new Session[]{quiet, dead, active}) {
+            registry.open(session);
+            registry.join(session, new ClientInfo(1, "user", false));
+        }
+        closed.add(dead);
+        long now = System.currentTimeMillis();
+
+        //quiet for one interval, pinged but kept
+        registry.heartbeat(now + 1000, 1000, 3000);
+        assertEquals(Set.of(quiet, active), pinged);
+        assertEquals(new SessionRegistry.Stats(2, 1, 1), registry.stats());
+        assertNull(registry.outbox(dead));
+
+        //active answers, quiet never does
+        registry.touch(active);
+        registry.heartbeat(now + 3000, 1000, 3000);
+        assertTrue(closed.contains(quiet));
+        assertFalse(closed.contains(active));
+        assertEquals(Set.of(active), registry.gameSessions(1));
+        assertEquals(new SessionRegistry.Stats(1, 1, 2), registry.stats());
+    }
+
+    @Test
+    void negativeFailedPingClosesSession() {
+        Session broken = newSession();
+        registry.open(broken);
+        registry.join(broken, new ClientInfo(1, "user", false));
+        brokenPings.add(broken);
+
+        registry.heartbeat(System.currentTimeMillis() + 1000, 1000, 3000);
+        assertTrue(closed.contains(broken), "a client left connected would never get another message");
+        assertTrue(registry.sessionsPerGame().isEmpty());
+        assertEquals(1, registry.stats().sessionsEvicted());
+    }
+
+    @Test
+    void negativeFailedSendRemovesSession() {
+        Session broken = newSession();
+        Session healthy = newSession();
+        registry.open(broken);
+        registry.open(healthy);
+        registry.join(broken, new ClientInfo(1, "white", false));
+        registry.join(healthy, new ClientInfo(1, "black", false));
+        brokenWrites.add(broken);
+
+        registry.outbox(broken).send("board", true);
+        assertTrue(closed.contains(broken), "a client left connected would never get another message");
+        assertNull(registry.outbox(broken));
+        assertEquals(Set.of(healthy), registry.gameSessions(1));
+        assertEquals(1, registry.stats().liveSessions());
+    }
+
+    @Test
+    void positiveStuckPingOnlyHoldsUpItsOwnSession() throws InterruptedException {
+        SessionRegistry pinging = new SessionRegistry(10, 60_000);
+        Session stuck = newSession();
+        Session healthy = newSession();
+        pinging.open(stuck);
+        pinging.open(healthy);
+        stuckPings.add(stuck);
+        long now = System.currentTimeMillis();
+
+        pinging.heartbeat(now + 1000, 1000, 3000);
+        //a second pass while the first ping is still blocked does not queue another one
+        pinging.heartbeat(now + 2000, 1000, 3000);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!pinged.contains(healthy) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(Set.of(healthy), pinged);
+
+        unstick.countDown();
+        deadline = System.currentTimeMillis() + 5000;
+        while (!pinged.contains(stuck) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(pinged.contains(stuck));
+        assertEquals(1, stuckAttempts.get());
+        assertEquals(2, pinging.stats().liveSessions());
+    }
+}
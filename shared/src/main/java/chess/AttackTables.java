@@ -0,0 +1,244 @@
+package chess;
+
+/**
+ * Precomputed attack bitboards for every piece type, built once when the class loads.
+ * <p>
+ * Knights, kings and pawns use plain per-square lookup tables. Rooks and bishops use
+ * magic bitboards: the blockers on a square's relevant rays are multiplied by a magic
+ * number so the top bits of the product index a table of attack sets, which turns a
+ * ray walk into a mask, a multiply, a shift and an array load. The magic numbers were
+ * found offline with a seeded random search for sparse multipliers, searching at class
+ * load took half a second so they are kept as constants and only verified here.
+ * <p>
+ * Squares are numbered the same way as {@link ChessBoard#squareIndex(int, int)}.
+ */
+public final class AttackTables {
+
+    private static final int[][] ROOK_DIRECTIONS = {
+            {-1, 0}, {1, 0}, {0, -1}, {0, 1}
+    };
+
+    private static final int[][] BISHOP_DIRECTIONS = {
+            {-1, -1}, {-1, 1}, {1, -1}, {1, 1}
+    };
+
+    private static final int[][] KNIGHT_OFFSETS = {
+            {1, 2}, {2, 1}, {-1, 2}, {-2, 1},
+            {-1, -2}, {1, -2}, {2, -1}, {-2, -1}
+    };
+
+    private static final int[][] KING_OFFSETS = {
+            {-1, -1}, {-1, 0}, {-1, 1},
+            { 0, -1},          { 0, 1},
+            { 1, -1}, { 1, 0}, { 1, 1}
+    };
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    //squares a pawn of each color attacks diagonally, indexed [color ordinal][square]
+    private static final long[][] PAWN = new long[2][64];
+
+    private static final long[] ROOK_MAGIC_NUMBERS = {
+            0x0480046281400010L, 0x1040100040002002L, 0x8780200008300180L, 0x8880060800100080L,
+            0x8200020104100820L, 0x0200100104020008L, 0x0480010000800200L, 0x4E00008201005024L,
+            0x3001002040800100L, 0x4200402010004000L, 0x0118802000801000L, 0x0020808010000800L,
+            0x0000800400080080L, 0x0002000802000410L, 0x1004800A00800500L, 0x0000802553000080L,
+            0x6040288000804011L, 0x1110084000200840L, 0x8082060024104080L, 0x0010010008201100L,
+            0x0000808008000402L, 0x0000808004000200L, 0x0800040008020110L, 0x0041020000609104L,
+            0x0880004040002000L, 0x3410200040005008L, 0x4400200080801000L, 0x0010008080080010L,
+            0x0001000500100800L, 0x0000020080800400L, 0x0000C10400021008L, 0x01C25D0E00004084L,
+            0x8800400080800020L, 0x0440008040802010L, 0x0102110043002000L, 0x4000100009002102L,
+            0x0040080101000410L, 0x0048040080800200L, 0x0000620104001008L, 0x0800040042002091L,
+            0x01A0400020828000L, 0x3090006000C54000L, 0x5080402001070010L, 0x00A21200400A0020L,
+            0x0A08000400088080L, 0x8001004400090002L, 0xC000100801440002L, 0x080002C884020031L,
+            0x4C20304100800B00L, 0x2140984000200080L, 0x0206002850438200L, 0x0800210010000900L,
+            0x0901000410080100L, 0x0002008024000280L, 0x0109000200040100L, 0x00002080410C0600L,
+            0x0240801102002042L, 0x0000108040220102L, 0x0A40E028820250C2L, 0x0482210500100009L,
+            0x0801000800021085L, 0x0816006810010422L, 0x020A000450A80102L, 0x0100088040240F02L
+    };
+
+    private static final long[] BISHOP_MAGIC_NUMBERS = {
+            0x0010204200802104L, 0x0020342408902410L, 0x102802EC04805828L, 0x0004050210300101L,
+            0x0004042000000002L, 0x0120880440000000L, 0x3006050121300C01L, 0x4012002082501043L,
+            0x01014830010A0C10L, 0x48089110060940C0L, 0x2001B0042148C000L, 0x0288222082000630L,
+            0x0060140421000240L, 0x0000009004200000L, 0x080110841028240AL, 0x8020008888080280L,
+            0x1409041002501405L, 0x0002000408281100L, 0x011000410C008010L, 0x6008008422082008L,
+            0x3002001402510002L, 0x0102020100808401L, 0x0204081482482240L, 0x080280610C010100L,
+            0x0049040020200260L, 0x0002200843082201L, 0x822A8220300C0210L, 0x9225040054440080L,
+            0x0221010000104004L, 0x2418060818900400L, 0x00041240010B1000L, 0x0200448E01040D00L,
+            0x0018880825042020L, 0x0212484411421000L, 0x0004008800108024L, 0x2200480800920A00L,
+            0x4881080200132200L, 0x000A180200011040L, 0x10A2020420020080L, 0x0008004080804209L,
+            0x4008A88808004000L, 0x0101420620013101L, 0x0016001402084401L, 0x0000014202200804L,
+            0x0100580504000040L, 0x004008280640CA20L, 0x0402080818804114L, 0x0002408922004100L,
+            0x0028680804900804L, 0x6080820090050028L, 0x4108020900888000L, 0x0000180046080000L,
+            0x0008212105240100L, 0x0004042024110080L, 0x0244085081020021L, 0x50041108220280C0L,
+            0x1082010841304800L, 0x0001020E0A020200L, 0x2280000200840420L, 0x0010000000208800L,
+            0x8181000A408D0900L, 0x9080384011020080L, 0x2006082004108208L, 0x4902084128008100L
+    };
+
+    private static final Magic[] ROOK_MAGICS = new Magic[64];
+    private static final Magic[] BISHOP_MAGICS = new Magic[64];
+
+    //squares strictly between two squares sharing a row, column or diagonal, 0 otherwise
+    private static final long[][] BETWEEN = new long[64][64];
+    //the whole row, column or diagonal through two aligned squares, 0 otherwise
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT[square] = offsetAttacks(square, KNIGHT_OFFSETS);
+            KING[square] = offsetAttacks(square, KING_OFFSETS);
+            PAWN[ChessGame.TeamColor.WHITE.ordinal()][square] = offsetAttacks(square, new int[][]{{1, -1}, {1, 1}});
+            PAWN[ChessGame.TeamColor.BLACK.ordinal()][square] = offsetAttacks(square, new int[][]{{-1, -1}, {-1, 1}});
+            ROOK_MAGICS[square] = buildMagic(square, ROOK_DIRECTIONS, ROOK_MAGIC_NUMBERS[square]);
+            BISHOP_MAGICS[square] = buildMagic(square, BISHOP_DIRECTIONS, BISHOP_MAGIC_NUMBERS[square]);
+            fillLines(square, ROOK_DIRECTIONS);
+            fillLines(square, BISHOP_DIRECTIONS);
+        }
+    }
+
+    private AttackTables() {
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given color standing on square attacks
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return PAWN[color.ordinal()][square];
+    }
+
+    public static long rookAttacks(int square, long occupancy) {
+        return ROOK_MAGICS[square].attacks(occupancy);
+    }
+
+    public static long bishopAttacks(int square, long occupancy) {
+        return BISHOP_MAGICS[square].attacks(occupancy);
+    }
+
+    public static long queenAttacks(int square, long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    /**
+     * @return the squares strictly between two squares on a shared line, or 0 if they are not aligned
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * @return every square of the line through two aligned squares, or 0 if they are not aligned
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    private static void fillLines(int square, int[][] directions) {
+        for (int[] d : directions) {
+            //the full line is this square plus its rays in both directions
+            long line = (1L << square)
+                    | slidingAttacks(square, 0L, new int[][]{d})
+                    | slidingAttacks(square, 0L, new int[][]{{-d[0], -d[1]}});
+            int row = (square >>> 3) + 1 + d[0];
+            int col = (square & 7) + 1 + d[1];
+            long between = 0L;
+            while (MoveUtils.onBoard(row, col)) {
+                int target = ChessBoard.squareIndex(row, col);
+                BETWEEN[square][target] = between;
+                LINE[square][target] = line;
+                between |= 1L << target;
+                row += d[0];
+                col += d[1];
+            }
+        }
+    }
+
+    private static long offsetAttacks(int square, int[][] offsets) {
+        int row = (square >>> 3) + 1;
+        int col = (square & 7) + 1;
+        long attacks = 0L;
+        for (int[] offset : offsets) {
+            if (MoveUtils.onBoard(row + offset[0], col + offset[1])) {
+                attacks |= 1L << ChessBoard.squareIndex(row + offset[0], col + offset[1]);
+            }
+        }
+        return attacks;
+    }
+
+    //Walks each ray until it leaves the board or hits a blocker, the blocker itself is attacked
+    private static long slidingAttacks(int square, long occupancy, int[][] directions) {
+        int startRow = (square >>> 3) + 1;
+        int startCol = (square & 7) + 1;
+        long attacks = 0L;
+        for (int[] d : directions) {
+            int row = startRow + d[0];
+            int col = startCol + d[1];
+            while (MoveUtils.onBoard(row, col)) {
+                long bit = 1L << ChessBoard.squareIndex(row, col);
+                attacks |= bit;
+                if ((occupancy & bit) != 0) {
+                    break;
+                }
+                row += d[0];
+                col += d[1];
+            }
+        }
+        return attacks;
+    }
+
+    //Squares whose occupancy can change the attack set: every ray square except the board edge it runs into
+    private static long relevantMask(int square, int[][] directions) {
+        int startRow = (square >>> 3) + 1;
+        int startCol = (square & 7) + 1;
+        long mask = 0L;
+        for (int[] d : directions) {
+            int row = startRow + d[0];
+            int col = startCol + d[1];
+            while (MoveUtils.onBoard(row + d[0], col + d[1])) {
+                mask |= 1L << ChessBoard.squareIndex(row, col);
+                row += d[0];
+                col += d[1];
+            }
+        }
+        return mask;
+    }
+
+    //Fills the lookup table for one square, two blocker sets with different attacks
+    //landing on the same index would mean the magic number is wrong
+    private static Magic buildMagic(int square, int[][] directions, long magic) {
+        long mask = relevantMask(square, directions);
+        int bits = Long.bitCount(mask);
+        int shift = 64 - bits;
+        long[] table = new long[1 << bits];
+        boolean[] filled = new boolean[1 << bits];
+
+        //enumerate every subset of the mask with the carry-rippler trick
+        long subset = 0L;
+        do {
+            long attacks = slidingAttacks(square, subset, directions);
+            int index = (int) ((subset * magic) >>> shift);
+            if (filled[index] && table[index] != attacks) {
+                throw new IllegalStateException("Bad magic number for square " + square);
+            }
+            table[index] = attacks;
+            filled[index] = true;
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+
+        return new Magic(mask, magic, shift, table);
+    }
+
+    private record Magic(long mask, long magic, int shift, long[] table) {
+        long attacks(long occupancy) {
+            return table[(int) (((occupancy & mask) * magic) >>> shift)];
+        }
+    }
+}
@@ -4,13 +4,11 @@ import java.util.Set;
 
 public class BishopMovesCalculator implements PieceMovesCalculator {
 
-    private static final int[][] DIAGONALS = {
-            {-1, -1}, {-1, 1}, {1, -1}, {1, 1}
-    };
-
     @Override
     public Set<ChessMove> calculateMoves(ChessBoard board, ChessPosition from) {
         ChessGame.TeamColor team = board.getColor(from);
-        return MoveUtils.generateDirectionalMoves(board, from, DIAGONALS, team);
+        int square = ChessBoard.squareIndex(from.getRow(), from.getColumn());
+        long targets = AttackTables.bishopAttacks(square, board.getOccupancy()) & MoveUtils.notOwn(board, team);
+        return MoveUtils.toMoves(from, targets);
     }
 }
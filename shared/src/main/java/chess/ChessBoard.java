@@ -6,6 +6,15 @@ import java.util.Arrays;
 public class ChessBoard {
     private ChessPiece[][] squares = new ChessPiece[8][8];
 
+    //Bitboards mirror squares, bit (row-1)*8 + (col-1) is set when a piece sits on that square.
+    //one board per color and piece type, indexed by bitboardIndex(color, type)
+    private final transient long[] pieceBitboards = new long[12];
+    private final transient long[] colorOccupancy = new long[2];
+    //Zobrist key of the pieces on the board, updated along with the bitboards
+    private transient long zobristKey;
+    //the squares array the bitboards were built from, Gson and resetBoard can swap it out
+    private transient ChessPiece[][] indexedSquares = squares;
+
     public ChessBoard() {
 
     }
@@ -17,7 +26,7 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow()-1][position.getColumn()-1] = piece;
+        setPiece(squareIndex(position.getRow(), position.getColumn()), piece);
     }
 
     /**
@@ -38,6 +47,163 @@ public class ChessBoard {
         return (piece != null) ? piece.getTeamColor() : null;
     }
 
+    /**
+     * Gets the squares occupied by one kind of piece
+     *
+     * @param color the team that owns the pieces
+     * @param type  the type of piece
+     * @return bitboard with bit (row-1)*8 + (col-1) set for every matching piece
+     */
+    public long getBitboard(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        ensureIndexed();
+        return pieceBitboards[bitboardIndex(color, type)];
+    }
+
+    /**
+     * @return bitboard of every square occupied by the given team
+     */
+    public long getOccupancy(ChessGame.TeamColor color) {
+        ensureIndexed();
+        return colorOccupancy[color.ordinal()];
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    public long getOccupancy() {
+        ensureIndexed();
+        return colorOccupancy[0] | colorOccupancy[1];
+    }
+
+    /**
+     * Gets the Zobrist key of the pieces on the board, equal boards always have equal
+     * keys. Whose turn it is is not part of the board, see {@link ChessGame#positionKey()}
+     *
+     * @return 64-bit key kept up to date as pieces are added and moved
+     */
+    public long getZobristKey() {
+        ensureIndexed();
+        return zobristKey;
+    }
+
+    /**
+     * Determines if any piece of the attacking team could capture on a square
+     *
+     * @param position the square to probe
+     * @param attacker the team doing the attacking
+     * @return True if at least one attacker piece attacks the square
+     */
+    public boolean isSquareAttacked(ChessPosition position, ChessGame.TeamColor attacker) {
+        return isSquareAttacked(squareIndex(position.getRow(), position.getColumn()), attacker);
+    }
+
+    boolean isSquareAttacked(int square, ChessGame.TeamColor attacker) {
+        ensureIndexed();
+        return isSquareAttacked(square, attacker, colorOccupancy[0] | colorOccupancy[1]);
+    }
+
+    //Looks outward from the target square using each piece's attack pattern in reverse,
+    //stopping at the first attacker found rather than generating the attacker's moves.
+    //occupancy decides what blocks sliding pieces, so callers can probe with a piece lifted
+    boolean isSquareAttacked(int square, ChessGame.TeamColor attacker, long occupancy) {
+        ensureIndexed();
+        int base = attacker.ordinal() * 6;
+        //a pawn attacks this square if a defending pawn here would attack the pawn's square
+        if ((AttackTables.pawnAttacks(attacker.opponent(), square)
+                & pieceBitboards[base + ChessPiece.PieceType.PAWN.ordinal()]) != 0) {
+            return true;
+        }
+        if ((AttackTables.knightAttacks(square) & pieceBitboards[base + ChessPiece.PieceType.KNIGHT.ordinal()]) != 0) {
+            return true;
+        }
+        if ((AttackTables.kingAttacks(square) & pieceBitboards[base + ChessPiece.PieceType.KING.ordinal()]) != 0) {
+            return true;
+        }
+        long queens = pieceBitboards[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        long diagonal = queens | pieceBitboards[base + ChessPiece.PieceType.BISHOP.ordinal()];
+        if (diagonal != 0 && (AttackTables.bishopAttacks(square, occupancy) & diagonal) != 0) {
+            return true;
+        }
+        long straight = queens | pieceBitboards[base + ChessPiece.PieceType.ROOK.ordinal()];
+        return straight != 0 && (AttackTables.rookAttacks(square, occupancy) & straight) != 0;
+    }
+
+    //Every attacker piece that attacks the square, same probes as isSquareAttacked without the early exit
+    long attackersOf(int square, ChessGame.TeamColor attacker, long occupancy) {
+        ensureIndexed();
+        int base = attacker.ordinal() * 6;
+        long queens = pieceBitboards[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        return (AttackTables.pawnAttacks(attacker.opponent(), square)
+                        & pieceBitboards[base + ChessPiece.PieceType.PAWN.ordinal()])
+                | (AttackTables.knightAttacks(square) & pieceBitboards[base + ChessPiece.PieceType.KNIGHT.ordinal()])
+                | (AttackTables.kingAttacks(square) & pieceBitboards[base + ChessPiece.PieceType.KING.ordinal()])
+                | (AttackTables.bishopAttacks(square, occupancy)
+                        & (queens | pieceBitboards[base + ChessPiece.PieceType.BISHOP.ordinal()]))
+                | (AttackTables.rookAttacks(square, occupancy)
+                        & (queens | pieceBitboards[base + ChessPiece.PieceType.ROOK.ordinal()]));
+    }
+
+    /**
+     * Converts a 1-based row and column into a bitboard square index
+     */
+    public static int squareIndex(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    /**
+     * Converts a bitboard square index back into a position
+     */
+    public static ChessPosition toPosition(int square) {
+        return ChessPosition.of((square >>> 3) + 1, (square & 7) + 1);
+    }
+
+    static int bitboardIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    ChessPiece getPiece(int square) {
+        return squares[square >>> 3][square & 7];
+    }
+
+    //Places a piece (or null) on a square, keeping the bitboards in step with squares
+    void setPiece(int square, ChessPiece piece) {
+        ensureIndexed();
+        long bit = 1L << square;
+        ChessPiece old = squares[square >>> 3][square & 7];
+        if (old != null) {
+            pieceBitboards[bitboardIndex(old.getTeamColor(), old.getPieceType())] &= ~bit;
+            colorOccupancy[old.getTeamColor().ordinal()] &= ~bit;
+            zobristKey ^= Zobrist.pieceKey(old, square);
+        }
+        if (piece != null) {
+            pieceBitboards[bitboardIndex(piece.getTeamColor(), piece.getPieceType())] |= bit;
+            colorOccupancy[piece.getTeamColor().ordinal()] |= bit;
+            zobristKey ^= Zobrist.pieceKey(piece, square);
+        }
+        squares[square >>> 3][square & 7] = piece;
+    }
+
+    private void ensureIndexed() {
+        if (indexedSquares != squares) {
+            rebuildBitboards();
+        }
+    }
+
+    private void rebuildBitboards() {
+        Arrays.fill(pieceBitboards, 0L);
+        Arrays.fill(colorOccupancy, 0L);
+        zobristKey = 0L;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = squares[square >>> 3][square & 7];
+            if (piece != null) {
+                pieceBitboards[bitboardIndex(piece.getTeamColor(), piece.getPieceType())] |= 1L << square;
+                colorOccupancy[piece.getTeamColor().ordinal()] |= 1L << square;
+                zobristKey ^= Zobrist.pieceKey(piece, square);
+            }
+        }
+        indexedSquares = squares;
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
@@ -50,31 +216,19 @@ public class ChessBoard {
         ChessGame.TeamColor black = ChessGame.TeamColor.BLACK;
         ChessGame.TeamColor white = ChessGame.TeamColor.WHITE;
 
-        //adds the black pieces
-        for (int col = 0; col < 8; col++) {
-            squares[1][col] = new ChessPiece(white, ChessPiece.PieceType.PAWN);
-        }
-        squares[0][0] = new ChessPiece(white, ChessPiece.PieceType.ROOK);
-        squares[0][1] = new ChessPiece(white, ChessPiece.PieceType.KNIGHT);
-        squares[0][2] = new ChessPiece(white, ChessPiece.PieceType.BISHOP);
-        squares[0][3] = new ChessPiece(white, ChessPiece.PieceType.QUEEN);
-        squares[0][4] = new ChessPiece(white, ChessPiece.PieceType.KING);
-        squares[0][5] = new ChessPiece(white, ChessPiece.PieceType.BISHOP);
-        squares[0][6] = new ChessPiece(white, ChessPiece.PieceType.KNIGHT);
-        squares[0][7] = new ChessPiece(white, ChessPiece.PieceType.ROOK);
-
-        //adds the white pieces
-        for (int col = 0; col < 8; col++) {
-            squares[6][col] = new ChessPiece(black, ChessPiece.PieceType.PAWN);
+        ChessPiece.PieceType[] backRank = {
+                ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING, ChessPiece.PieceType.BISHOP,
+                ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK
+        };
+
+        //adds the white pieces on rows 1-2 and the black pieces on rows 7-8
+        for (int col = 1; col <= 8; col++) {
+            setPiece(squareIndex(1, col), ChessPiece.of(white, backRank[col - 1]));
+            setPiece(squareIndex(2, col), ChessPiece.of(white, ChessPiece.PieceType.PAWN));
+            setPiece(squareIndex(7, col), ChessPiece.of(black, ChessPiece.PieceType.PAWN));
+            setPiece(squareIndex(8, col), ChessPiece.of(black, backRank[col - 1]));
         }
-        squares[7][0] = new ChessPiece(black, ChessPiece.PieceType.ROOK);
-        squares[7][1] = new ChessPiece(black, ChessPiece.PieceType.KNIGHT);
-        squares[7][2] = new ChessPiece(black, ChessPiece.PieceType.BISHOP);
-        squares[7][3] = new ChessPiece(black, ChessPiece.PieceType.QUEEN);
-        squares[7][4] = new ChessPiece(black, ChessPiece.PieceType.KING);
-        squares[7][5] = new ChessPiece(black, ChessPiece.PieceType.BISHOP);
-        squares[7][6] = new ChessPiece(black, ChessPiece.PieceType.KNIGHT);
-        squares[7][7] = new ChessPiece(black, ChessPiece.PieceType.ROOK);
     }
 
 
@@ -101,11 +255,13 @@ public class ChessBoard {
             return false;
         }
         ChessBoard other = (ChessBoard) o;
-        return Arrays.deepEquals(squares, other.squares);
+        //different keys settle most comparisons, the bitboards rule out key collisions
+        return getZobristKey() == other.getZobristKey()
+                && Arrays.equals(pieceBitboards, other.pieceBitboards);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(getZobristKey());
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package chess;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Objects;
@@ -15,12 +16,44 @@ public class ChessGame {
     private ChessBoard chessBoard;
     private boolean gameOver = false;
 
+    //Undo stack for doMove/undoMove. Each entry is the EncodedMove (from, to, promotion)
+    //with the team whose turn it was in TURN_BIT, plus the moved and captured pieces in
+    //the parallel piece array. The arrays are reused so making and unmaking moves
+    //allocates nothing once they have grown. Higher bits are free for castling rights
+    //and en passant state
+    private transient int[] undoMoves = new int[32];
+    private transient ChessPiece[] undoPieces = new ChessPiece[64];
+    private transient int undoSize = 0;
+    private static final int TURN_BIT = 1 << 16;
+    //moves played in the game, including any played before it was loaded (see setPly).
+    //Not part of the JSON or binary forms, storage that needs it keeps it alongside
+    private transient int ply = 0;
+
+    //Binary form written by toBytes: a version byte, a flags byte, then one nibble per
+    //square (square 2i in the low half of byte i, 0 for empty, bitboardIndex + 1 for a piece)
+    private static final byte BINARY_VERSION = 1;
+    private static final int BINARY_HEADER = 2;
+    public static final int BINARY_LENGTH = BINARY_HEADER + 32;
+    private static final int BLACK_TO_MOVE_FLAG = 1;
+    private static final int GAME_OVER_FLAG = 1 << 1;
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    //one list per thread reused by validMoves, so generating moves does not allocate a new
+    //list each call and games read by several threads at once do not share it
+    private static final ThreadLocal<MoveList> MOVE_SCRATCH = ThreadLocal.withInitial(MoveList::new);
+
     public ChessGame() {
         chessBoard = new ChessBoard();
         chessBoard.resetBoard();
         setTeamTurn(TeamColor.WHITE);
     }
 
+    //for decoders that build the board themselves, skips setting up the starting board
+    private ChessGame(ChessBoard board, TeamColor teamTurn) {
+        chessBoard = board;
+        teamColor = teamTurn;
+    }
+
 
     /**
      * @return Which team's turn it is
@@ -37,6 +70,18 @@ public class ChessGame {
         teamColor = team;
     }
 
+    /**
+     * Gets the Zobrist key of the position: the pieces on the board and whose turn it
+     * is. Games that compare equal have the same key, and the key is updated as moves
+     * are made rather than recomputed, so it is cheap enough to look up positions by
+     *
+     * @return 64-bit position key
+     */
+    public long positionKey() {
+        long boardKey = chessBoard != null ? chessBoard.getZobristKey() : 0L;
+        return boardKey ^ (teamColor == TeamColor.BLACK ? Zobrist.BLACK_TO_MOVE : 0L);
+    }
+
     /**
      * Enum identifying the 2 possible teams in a chess game
      */
@@ -47,6 +92,13 @@ public class ChessGame {
         public String toString() {
             return this == WHITE ? "white" : "black";
         }
+
+        /**
+         * @return the other team
+         */
+        public TeamColor opponent() {
+            return this == WHITE ? BLACK : WHITE;
+        }
     }
 
     /**
@@ -57,31 +109,40 @@ public class ChessGame {
      * startPosition
      */
     //return all legal moves a piece can make, if no piece return null.
-    //move is valid if it is a piece move and team king is not in danger.
+    //move is valid if it is a piece move and team king is not in danger,
+    //LegalMoveGenerator works that out from pins and checks without trying each move.
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
         ChessPiece piece = chessBoard.getPiece(startPosition);
         if (piece == null) {
             return null; //return null if no piece
         }
-        Collection<ChessMove> legalMove = (HashSet<ChessMove>) chessBoard.getPiece(startPosition).pieceMoves(chessBoard, startPosition);
-        Collection<ChessMove> validMoves = new HashSet<>();
-
-        for (ChessMove move : legalMove) {
-            ChessPiece target = chessBoard.getPiece(move.endPosition());
+        long from = 1L << ChessBoard.squareIndex(startPosition.getRow(), startPosition.getColumn());
+        return generateValidMoves(piece.getTeamColor(), from);
 
-            chessBoard.addPiece(startPosition, null);
-            chessBoard.addPiece(move.endPosition(), piece);
+    }
 
-            if (!isInCheck(piece.getTeamColor())) {
-                validMoves.add(move);
-            }
+    /**
+     * Gets every valid move for a team
+     *
+     * @param teamColor the team to get valid moves for
+     * @return Set of valid moves for all of the team's pieces
+     */
+    public Collection<ChessMove> allValidMoves(TeamColor teamColor) {
+        return generateValidMoves(teamColor, -1L);
+    }
 
-            chessBoard.addPiece(move.endPosition(), target);
-            chessBoard.addPiece(startPosition, piece);
+    //generates encoded moves into the scratch list and only builds ChessMoves for the result
+    private Collection<ChessMove> generateValidMoves(TeamColor team, long fromMask) {
+        MoveList moveScratch = MOVE_SCRATCH.get();
+        moveScratch.clear();
+        LegalMoveGenerator.generate(chessBoard, team, fromMask, moveScratch);
+        Collection<ChessMove> validMoves = new HashSet<>(moveScratch.size() * 2);
+        for (int i = 0; i < moveScratch.size(); i++) {
+            validMoves.add(EncodedMove.toChessMove(moveScratch.get(i)));
         }
         return validMoves;
-
     }
+
     /**
      * Makes a move in a chess game
      *
@@ -103,73 +164,141 @@ public class ChessGame {
             throw new InvalidMoveException("Invalid move.");
         }
 
-        ChessPiece movedPiece = (move.getPromotionPiece() != null)
-                ? new ChessPiece(teamColor, move.getPromotionPiece())
-                : piece;
-
-        chessBoard.addPiece(move.endPosition(), movedPiece);
-        chessBoard.addPiece(move.startPosition(), null);
-
-        teamColor = (teamColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        doMove(move);
+    }
 
+    /**
+     * Plays a move without checking that it is legal, recording what is needed to take
+     * it back with {@link #undoMove()}. The turn passes to the moving piece's opponent.
+     * Used for legality checks, analysis and takebacks, callers must pass a move that
+     * starts on an occupied square.
+     *
+     * @param move chess move to perform
+     */
+    public void doMove(ChessMove move) {
+        doMove(EncodedMove.fromChessMove(move));
     }
 
     /**
-     * Determines if the given team is in check
+     * Plays an {@link EncodedMove} without checking that it is legal, the allocation
+     * free form of {@link #doMove(ChessMove)} used by search and perft
      *
-     * @param teamColor which team to check for check
-     * @return True if the specified team is in check
+     * @param move encoded move to perform
      */
-    //returns true if the specified team's King could be captured
-    public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPosition = findKingPosition(teamColor);
-        return kingPosition != null && positionIsThreatened(kingPosition, teamColor);
+    public void doMove(int move) {
+        int from = EncodedMove.from(move);
+        int to = EncodedMove.to(move);
+        ChessPiece.PieceType promotion = EncodedMove.promotion(move);
+        ChessPiece piece = chessBoard.getPiece(from);
+        ChessPiece captured = chessBoard.getPiece(to);
+
+        if (undoSize == undoMoves.length) {
+            undoMoves = Arrays.copyOf(undoMoves, undoSize * 2);
+            undoPieces = Arrays.copyOf(undoPieces, undoSize * 4);
+        }
+        undoMoves[undoSize] = (move & EncodedMove.MOVE_MASK) | (teamColor == TeamColor.BLACK ? TURN_BIT : 0);
+        undoPieces[2 * undoSize] = piece;
+        undoPieces[2 * undoSize + 1] = captured;
+        undoSize++;
+        ply++;
+
+        chessBoard.setPiece(from, null);
+        chessBoard.setPiece(to, (promotion != null) ? ChessPiece.of(piece.getTeamColor(), promotion) : piece);
+        teamColor = piece.getTeamColor().opponent();
     }
 
-    private ChessPosition findKingPosition(TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = chessBoard.getPiece(pos);
-                if (isKingOfTeam(piece, teamColor)) {
-                    return pos;
-                }
-            }
+    /**
+     * Takes back the most recent move made with {@link #doMove(ChessMove)} or
+     * {@link #makeMove(ChessMove)}, restoring the board and whose turn it is
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void undoMove() {
+        if (undoSize == 0) {
+            throw new IllegalStateException("No move to undo.");
         }
-        return null;
+        undoSize--;
+        ply--;
+        int record = undoMoves[undoSize];
+        chessBoard.setPiece(EncodedMove.to(record), undoPieces[2 * undoSize + 1]);
+        chessBoard.setPiece(EncodedMove.from(record), undoPieces[2 * undoSize]);
+        teamColor = ((record & TURN_BIT) == 0) ? TeamColor.WHITE : TeamColor.BLACK;
+        undoPieces[2 * undoSize] = null;
+        undoPieces[2 * undoSize + 1] = null;
     }
 
-    private boolean isKingOfTeam(ChessPiece piece, TeamColor teamColor) {
-        return piece != null &&
-                piece.getPieceType() == ChessPiece.PieceType.KING &&
-                piece.getTeamColor() == teamColor;
+    /**
+     * @return True if there is a move that {@link #undoMove()} can take back
+     */
+    public boolean canUndo() {
+        return undoSize > 0;
     }
 
-    private boolean positionIsThreatened(ChessPosition kingPos, TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition pos = new ChessPosition(row, col);
-                ChessPiece piece = chessBoard.getPiece(pos);
+    /**
+     * Gets how many moves have been played in this game. Moves made with doMove and
+     * makeMove count up and undoMove counts down. A game rebuilt from a stored position
+     * starts at 0 unless the loader restores the count with {@link #setPly(int)}.
+     *
+     * @return number of half-moves played
+     */
+    public int getPly() {
+        return ply;
+    }
 
-                if (isEnemyPiece(piece, teamColor) && canThreaten(piece, pos, kingPos)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+    /**
+     * Restores the move count of a game loaded from a stored position
+     *
+     * @param ply number of half-moves played to reach the current position
+     */
+    public void setPly(int ply) {
+        this.ply = ply;
     }
 
-    private boolean isEnemyPiece(ChessPiece piece, TeamColor teamColor) {
-        return piece != null && piece.getTeamColor() != teamColor;
+    /**
+     * Gets the moves played since this game was created or loaded, the ones
+     * {@link #undoMove()} can take back. The last one is move number {@link #getPly()}.
+     *
+     * @return {@link EncodedMove}s oldest first, without capture flags
+     */
+    public int[] getMoveHistory() {
+        int[] moves = new int[undoSize];
+        for (int i = 0; i < undoSize; i++) {
+            moves[i] = undoMoves[i] & EncodedMove.MOVE_MASK;
+        }
+        return moves;
     }
 
-    private boolean canThreaten(ChessPiece piece, ChessPosition from, ChessPosition target) {
-        for (ChessMove move : piece.pieceMoves(chessBoard, from)) {
-            if (move.endPosition().equals(target)) {
-                return true;
-            }
+    /**
+     * Makes an independent copy of this game, including the move count and the moves
+     * that can be taken back
+     *
+     * @return a game that can be changed without affecting this one
+     */
+    public ChessGame copy() {
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            board.setPiece(square, chessBoard.getPiece(square));
         }
-        return false;
+        ChessGame copy = new ChessGame(board, teamColor);
+        copy.gameOver = gameOver;
+        copy.ply = ply;
+        copy.undoMoves = Arrays.copyOf(undoMoves, undoMoves.length);
+        copy.undoPieces = Arrays.copyOf(undoPieces, undoPieces.length);
+        copy.undoSize = undoSize;
+        return copy;
+    }
+
+    /**
+     * Determines if the given team is in check
+     *
+     * @param teamColor which team to check for check
+     * @return True if the specified team is in check
+     */
+    //returns true if the specified team's King could be captured
+    public boolean isInCheck(TeamColor teamColor) {
+        long kings = chessBoard.getBitboard(teamColor, ChessPiece.PieceType.KING);
+        return kings != 0
+                && chessBoard.isSquareAttacked(Long.numberOfTrailingZeros(kings), teamColor.opponent());
     }
 
     /**
@@ -199,26 +328,7 @@ public class ChessGame {
 
 
     public boolean cantMove(TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int column = 1; column <= 8; column++) {
-                if (hasValidMovesForPiece(row, column, teamColor)) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-
-    private boolean hasValidMovesForPiece(int row, int column, TeamColor teamColor) {
-        ChessPosition position = new ChessPosition(row, column);
-        ChessPiece piece = chessBoard.getPiece(position);
-
-        if (piece == null || piece.getTeamColor() != teamColor) {
-            return false;
-        }
-
-        Collection<ChessMove> moves = validMoves(position);
-        return moves != null && !moves.isEmpty();
+        return !LegalMoveGenerator.hasLegalMove(chessBoard, teamColor);
     }
 
 
@@ -234,6 +344,9 @@ public class ChessGame {
 
     public void setBoard(ChessBoard board) {
         this.chessBoard = board;
+        //recorded moves belong to the old board
+        Arrays.fill(undoPieces, 0, 2 * undoSize, null);
+        undoSize = 0;
     }
 
     /**
@@ -257,6 +370,177 @@ public class ChessGame {
         return gameOver;
     }
 
+    /**
+     * Encodes the board, whose turn it is and whether the game is over into
+     * {@link #BINARY_LENGTH} bytes, a small fraction of the JSON form. Move history is
+     * not included.
+     *
+     * @return the encoded game, readable by {@link #fromBytes(byte[])}
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[BINARY_LENGTH];
+        bytes[0] = BINARY_VERSION;
+        bytes[1] = (byte) ((teamColor == TeamColor.BLACK ? BLACK_TO_MOVE_FLAG : 0) | (gameOver ? GAME_OVER_FLAG : 0));
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = chessBoard.getPiece(square);
+            if (piece != null) {
+                int code = ChessBoard.bitboardIndex(piece.getTeamColor(), piece.getPieceType()) + 1;
+                bytes[BINARY_HEADER + (square >>> 1)] |= (byte) (code << ((square & 1) * 4));
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Decodes a game written by {@link #toBytes()}
+     *
+     * @param bytes the encoded game
+     * @return a new game in the encoded position, with no move history
+     * @throws IllegalArgumentException if the bytes are not an encoded game
+     */
+    public static ChessGame fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != BINARY_LENGTH || bytes[0] != BINARY_VERSION) {
+            throw new IllegalArgumentException("Not an encoded chess game.");
+        }
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            int code = (bytes[BINARY_HEADER + (square >>> 1)] >>> ((square & 1) * 4)) & 0xF;
+            if (code > 12) {
+                throw new IllegalArgumentException("Bad piece code " + code + " in encoded chess game.");
+            }
+            if (code != 0) {
+                TeamColor color = code > 6 ? TeamColor.BLACK : TeamColor.WHITE;
+                board.setPiece(square, ChessPiece.of(color, PIECE_TYPES[(code - 1) % 6]));
+            }
+        }
+        ChessGame game = new ChessGame(board, (bytes[1] & BLACK_TO_MOVE_FLAG) != 0 ? TeamColor.BLACK : TeamColor.WHITE);
+        game.setGameOver((bytes[1] & GAME_OVER_FLAG) != 0);
+        return game;
+    }
+
+    /**
+     * Writes the position in Forsyth-Edwards Notation. There is no castling or en
+     * passant in this game, so those fields are always "-", and the move counters are
+     * not tracked so they are written as "0 1".
+     *
+     * @return the position as FEN, e.g. "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1"
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = chessBoard.getPiece(ChessBoard.squareIndex(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                fen.append(fenLetter(piece));
+            }
+            if (empty > 0) {
+                fen.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+        fen.append(teamColor == TeamColor.BLACK ? " b" : " w").append(" - - 0 1");
+        return fen.toString();
+    }
+
+    /**
+     * Reads a position in Forsyth-Edwards Notation. Only the piece placement is
+     * required; the side to move defaults to white, and the castling, en passant and
+     * move counter fields are accepted but ignored. Pieces are placed straight onto
+     * the board as the text is read.
+     *
+     * @param fen the position, e.g. "8/8/8/8/8/8/8/K6k b"
+     * @return a new game in that position, with no move history
+     * @throws IllegalArgumentException if the text is not a valid position
+     */
+    public static ChessGame fromFen(CharSequence fen) {
+        ChessBoard board = new ChessBoard();
+        int length = fen.length();
+        int i = 0;
+        int row = 8;
+        int col = 1;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 9 || row == 1) {
+                    throw badFen(fen);
+                }
+                row--;
+                col = 1;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+                if (col > 9) {
+                    throw badFen(fen);
+                }
+            } else {
+                ChessPiece.PieceType type = fenPieceType(Character.toLowerCase(c));
+                if (type == null || col > 8) {
+                    throw badFen(fen);
+                }
+                TeamColor color = Character.isUpperCase(c) ? TeamColor.WHITE : TeamColor.BLACK;
+                board.setPiece(ChessBoard.squareIndex(row, col), ChessPiece.of(color, type));
+                col++;
+            }
+        }
+        if (row != 1 || col != 9) {
+            throw badFen(fen);
+        }
+
+        while (i < length && fen.charAt(i) == ' ') {
+            i++;
+        }
+        TeamColor teamTurn = TeamColor.WHITE;
+        if (i < length) {
+            char side = fen.charAt(i);
+            if (side == 'b') {
+                teamTurn = TeamColor.BLACK;
+            } else if (side != 'w') {
+                throw badFen(fen);
+            }
+            if (i + 1 < length && fen.charAt(i + 1) != ' ') {
+                throw badFen(fen);
+            }
+        }
+        return new ChessGame(board, teamTurn);
+    }
+
+    private static char fenLetter(ChessPiece piece) {
+        char letter = switch (piece.getPieceType()) {
+            case KING -> 'k';
+            case QUEEN -> 'q';
+            case BISHOP -> 'b';
+            case KNIGHT -> 'n';
+            case ROOK -> 'r';
+            case PAWN -> 'p';
+        };
+        return piece.getTeamColor() == TeamColor.WHITE ? Character.toUpperCase(letter) : letter;
+    }
+
+    private static ChessPiece.PieceType fenPieceType(char letter) {
+        return switch (letter) {
+            case 'k' -> ChessPiece.PieceType.KING;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            default -> null;
+        };
+    }
+
+    private static IllegalArgumentException badFen(CharSequence fen) {
+        return new IllegalArgumentException("Not a valid FEN position: " + fen);
+    }
+
     @Override
     public String toString() {
         return "ChessGame{" + "teamTurn=" + teamColor + ", board =" + chessBoard + '}';
@@ -271,11 +555,13 @@ public class ChessGame {
             return false;
         }
         ChessGame chessGame = (ChessGame) object;
-        return teamColor == chessGame.teamColor && Objects.equals(chessBoard, chessGame.chessBoard);
+        return teamColor == chessGame.teamColor
+                && positionKey() == chessGame.positionKey()
+                && Objects.equals(chessBoard, chessGame.chessBoard);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(teamColor, chessBoard);
+        return Long.hashCode(positionKey());
     }
 }
\ No newline at end of file
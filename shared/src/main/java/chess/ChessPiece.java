@@ -1,4 +1,7 @@
 package chess;
+import com.google.gson.annotations.JsonAdapter;
+import serialization.ChessPieceAdapter;
+
 import java.util.Collection;
 
 /**
@@ -12,7 +15,27 @@ import java.util.Collection;
 // independent of other chess rules such as check, stalemate, or checkmate.
 // My class uses PieceMovesCalculator
 
+@JsonAdapter(ChessPieceAdapter.class)
 public class ChessPiece {
+    //one shared instance per color and type, indexed like the board bitboards
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[ChessBoard.bitboardIndex(color, type)] = new ChessPiece(color, type);
+            }
+        }
+    }
+
+    //calculators are stateless, so every piece shares one of each
+    private static final PieceMovesCalculator KING_MOVES = new KingMovesCalculator();
+    private static final PieceMovesCalculator QUEEN_MOVES = new QueenMovesCalculator();
+    private static final PieceMovesCalculator ROOK_MOVES = new RookMovesCalculator();
+    private static final PieceMovesCalculator BISHOP_MOVES = new BishopMovesCalculator();
+    private static final PieceMovesCalculator KNIGHT_MOVES = new KnightMovesCalculator();
+    private static final PieceMovesCalculator PAWN_MOVES = new PawnMovesCalculator();
+
     private final ChessGame.TeamColor color;
     private final PieceType type;
 
@@ -21,6 +44,14 @@ public class ChessPiece {
         this.type = type;
     }
 
+    /**
+     * Gets the shared piece for a color and type, pieces are immutable so one
+     * instance of each is enough
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, PieceType type) {
+        return PIECES[ChessBoard.bitboardIndex(pieceColor, type)];
+    }
+
 
     /**
      * The various different chess piece options
@@ -57,12 +88,12 @@ public class ChessPiece {
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
         return switch (type) {
-            case KING -> new KingMovesCalculator().calculateMoves(board, myPosition);
-            case QUEEN -> new QueenMovesCalculator().calculateMoves(board, myPosition);
-            case ROOK -> new RookMovesCalculator().calculateMoves(board, myPosition);
-            case BISHOP -> new BishopMovesCalculator().calculateMoves(board, myPosition);
-            case KNIGHT -> new KnightMovesCalculator().calculateMoves(board, myPosition);
-            case PAWN -> new PawnMovesCalculator().calculateMoves(board, myPosition);
+            case KING -> KING_MOVES.calculateMoves(board, myPosition);
+            case QUEEN -> QUEEN_MOVES.calculateMoves(board, myPosition);
+            case ROOK -> ROOK_MOVES.calculateMoves(board, myPosition);
+            case BISHOP -> BISHOP_MOVES.calculateMoves(board, myPosition);
+            case KNIGHT -> KNIGHT_MOVES.calculateMoves(board, myPosition);
+            case PAWN -> PAWN_MOVES.calculateMoves(board, myPosition);
         };
     }
 
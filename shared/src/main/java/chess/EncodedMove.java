@@ -0,0 +1,68 @@
+package chess;
+
+/**
+ * Packs a move into a primitive int so move generation and search can pass moves
+ * around without allocating {@link ChessMove} objects.
+ * <p>
+ * Layout: bits 0-5 from square, bits 6-11 to square (both numbered like
+ * {@link ChessBoard#squareIndex(int, int)}), bits 12-14 the promotion piece type
+ * ordinal + 1 (0 for no promotion), bit 15 set for captures. The lower 16 bits are
+ * enough to describe a move, higher bits are free for callers to tag on extra state.
+ */
+public final class EncodedMove {
+
+    public static final int FLAG_CAPTURE = 1 << 15;
+
+    static final int SQUARE_MASK = 0x3F;
+    static final int TO_SHIFT = 6;
+    static final int PROMOTION_SHIFT = 12;
+    //from, to and promotion, the part of a move that equals() cares about
+    static final int MOVE_MASK = 0x7FFF;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private EncodedMove() {
+    }
+
+    public static int encode(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        return from
+                | (to << TO_SHIFT)
+                | ((promotion == null ? 0 : promotion.ordinal() + 1) << PROMOTION_SHIFT)
+                | flags;
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /**
+     * @return the piece type a pawn promotes to, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int type = (move >>> PROMOTION_SHIFT) & 7;
+        return type == 0 ? null : TYPES[type - 1];
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & FLAG_CAPTURE) != 0;
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessBoard.toPosition(from(move)), ChessBoard.toPosition(to(move)), promotion(move));
+    }
+
+    /**
+     * Encodes a move without flags, the capture flag depends on the board so it is left clear
+     */
+    public static int fromChessMove(ChessMove move) {
+        ChessPosition start = move.startPosition();
+        ChessPosition end = move.endPosition();
+        return encode(ChessBoard.squareIndex(start.getRow(), start.getColumn()),
+                ChessBoard.squareIndex(end.getRow(), end.getColumn()),
+                move.getPromotionPiece(), 0);
+    }
+}
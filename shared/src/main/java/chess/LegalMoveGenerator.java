@@ -0,0 +1,183 @@
+package chess;
+
+/**
+ * Generates only legal moves for one side, without playing each candidate move and
+ * re-testing for check.
+ * <p>
+ * The position is analysed once: the pieces giving check and the pieces pinned to
+ * their own king. Out of check every piece may go anywhere it attacks except onto its
+ * own pieces. In single check, non-king moves must capture the checker or block the
+ * line between it and the king. In double check only the king may move. A pinned
+ * piece can only move along the line through its king and the pinner, and the king
+ * may not step onto an attacked square (tested with the king lifted off the board so
+ * it cannot hide behind itself along a ray).
+ * <p>
+ * There is no castling or en passant in this engine, so those special cases are not
+ * needed here. A side without a king has no checks or pins and every move is legal,
+ * the same as {@link ChessGame#isInCheck(ChessGame.TeamColor)} treats it.
+ */
+public final class LegalMoveGenerator {
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT
+    };
+
+    private static final long ROW_1 = 0xFFL;
+    private static final long ROW_8 = 0xFFL << 56;
+
+    private LegalMoveGenerator() {
+    }
+
+    /**
+     * Adds the legal moves of a team's pieces to a move list as {@link EncodedMove} ints
+     *
+     * @param board    the board to generate moves on
+     * @param team     the team to move
+     * @param fromMask bitboard of the starting squares to generate for, -1 for all
+     * @param moves    receives the legal moves
+     */
+    public static void generate(ChessBoard board, ChessGame.TeamColor team, long fromMask, MoveList moves) {
+        int kingSquare = kingSquare(board, team);
+        long checkMask = checkMask(board, team, kingSquare);
+        long pinned = pinned(board, team, kingSquare);
+        long enemies = board.getOccupancy(team.opponent());
+
+        for (long pieces = board.getOccupancy(team) & fromMask; pieces != 0; pieces &= pieces - 1) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            ChessPiece.PieceType type = board.getPiece(from).getPieceType();
+            long targets = legalTargets(board, team, from, type, kingSquare, checkMask, pinned);
+            boolean promotes = type == ChessPiece.PieceType.PAWN;
+            for (; targets != 0; targets &= targets - 1) {
+                int to = Long.numberOfTrailingZeros(targets);
+                int flags = ((enemies & (1L << to)) != 0) ? EncodedMove.FLAG_CAPTURE : 0;
+                if (promotes && ((1L << to) & (ROW_1 | ROW_8)) != 0) {
+                    for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                        moves.add(EncodedMove.encode(from, to, promotion, flags));
+                    }
+                } else {
+                    moves.add(EncodedMove.encode(from, to, null, flags));
+                }
+            }
+        }
+    }
+
+    /**
+     * Determines if a team has at least one legal move, stopping at the first one found
+     *
+     * @param board the board to look at
+     * @param team  the team to move
+     * @return True if any piece of the team can legally move
+     */
+    public static boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor team) {
+        int kingSquare = kingSquare(board, team);
+        long checkMask = checkMask(board, team, kingSquare);
+        long pinned = pinned(board, team, kingSquare);
+
+        //try the king first, it is the only piece that can move in double check
+        if (kingSquare >= 0 && legalTargets(board, team, kingSquare, ChessPiece.PieceType.KING,
+                kingSquare, checkMask, pinned) != 0) {
+            return true;
+        }
+        for (long pieces = board.getOccupancy(team); pieces != 0; pieces &= pieces - 1) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            ChessPiece.PieceType type = board.getPiece(from).getPieceType();
+            if (legalTargets(board, team, from, type, kingSquare, checkMask, pinned) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int kingSquare(ChessBoard board, ChessGame.TeamColor team) {
+        long kings = board.getBitboard(team, ChessPiece.PieceType.KING);
+        return kings != 0 ? Long.numberOfTrailingZeros(kings) : -1;
+    }
+
+    //Squares a non-king piece may move to given the checks on its king
+    private static long checkMask(ChessBoard board, ChessGame.TeamColor team, int kingSquare) {
+        if (kingSquare < 0) {
+            return -1L;
+        }
+        long checkers = board.attackersOf(kingSquare, team.opponent(), board.getOccupancy());
+        if (checkers == 0) {
+            return -1L;
+        }
+        if ((checkers & (checkers - 1)) != 0) {
+            return 0L;
+        }
+        return checkers | AttackTables.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+    }
+
+    //Own pieces that are the only piece between their king and an enemy slider
+    private static long pinned(ChessBoard board, ChessGame.TeamColor team, int kingSquare) {
+        if (kingSquare < 0) {
+            return 0L;
+        }
+        ChessGame.TeamColor enemy = team.opponent();
+        long queens = board.getBitboard(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (AttackTables.rookAttacks(kingSquare, 0L)
+                        & (queens | board.getBitboard(enemy, ChessPiece.PieceType.ROOK)))
+                | (AttackTables.bishopAttacks(kingSquare, 0L)
+                        & (queens | board.getBitboard(enemy, ChessPiece.PieceType.BISHOP)));
+        long occupancy = board.getOccupancy();
+        long own = board.getOccupancy(team);
+        long pinned = 0L;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = AttackTables.between(kingSquare, Long.numberOfTrailingZeros(snipers)) & occupancy;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pinned |= blockers & own;
+            }
+        }
+        return pinned;
+    }
+
+    private static long legalTargets(ChessBoard board, ChessGame.TeamColor team, int from,
+                                     ChessPiece.PieceType type, int kingSquare, long checkMask, long pinned) {
+        long occupancy = board.getOccupancy();
+        long notOwn = ~board.getOccupancy(team);
+
+        if (type == ChessPiece.PieceType.KING) {
+            long withoutKing = occupancy & ~(1L << from);
+            long safe = 0L;
+            for (long targets = AttackTables.kingAttacks(from) & notOwn; targets != 0; targets &= targets - 1) {
+                int to = Long.numberOfTrailingZeros(targets);
+                if (!board.isSquareAttacked(to, team.opponent(), withoutKing)) {
+                    safe |= 1L << to;
+                }
+            }
+            return safe;
+        }
+        if (checkMask == 0) {
+            return 0L;
+        }
+
+        long targets = switch (type) {
+            case QUEEN -> AttackTables.queenAttacks(from, occupancy) & notOwn;
+            case ROOK -> AttackTables.rookAttacks(from, occupancy) & notOwn;
+            case BISHOP -> AttackTables.bishopAttacks(from, occupancy) & notOwn;
+            case KNIGHT -> AttackTables.knightAttacks(from) & notOwn;
+            case PAWN -> pawnTargets(board, team, from, occupancy);
+            case KING -> 0L;
+        };
+        targets &= checkMask;
+        if ((pinned & (1L << from)) != 0) {
+            targets &= AttackTables.line(kingSquare, from);
+        }
+        return targets;
+    }
+
+    private static long pawnTargets(ChessBoard board, ChessGame.TeamColor team, int from, long occupancy) {
+        boolean white = team == ChessGame.TeamColor.WHITE;
+        long pawn = 1L << from;
+        long empty = ~occupancy;
+        long oneAhead = (white ? pawn << 8 : pawn >>> 8) & empty;
+        long targets = oneAhead;
+        if ((from >>> 3) == (white ? 1 : 6)) {
+            targets |= (white ? oneAhead << 8 : oneAhead >>> 8) & empty;
+        }
+        return targets | (AttackTables.pawnAttacks(team, from) & board.getOccupancy(team.opponent()));
+    }
+}
@@ -0,0 +1,70 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of {@link EncodedMove} ints meant to be cleared and reused, so
+ * generating moves over and over does not allocate once the backing array is big
+ * enough for the busiest position.
+ * <p>
+ * Not thread safe. {@link #forPly(int)} hands each thread its own list per search
+ * depth, so recursive searches can keep one list per level without allocating.
+ */
+public final class MoveList {
+
+    //no legal chess position has more than 218 moves
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final int MAX_PLY = 128;
+
+    private static final ThreadLocal<MoveList[]> PLY_LISTS = ThreadLocal.withInitial(() -> new MoveList[MAX_PLY]);
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    /**
+     * Gets this thread's list for a search depth, cleared and ready to fill
+     *
+     * @param ply the depth below the root, 0 for the root position
+     */
+    public static MoveList forPly(int ply) {
+        MoveList[] lists = PLY_LISTS.get();
+        MoveList list = lists[ply];
+        if (list == null) {
+            list = new MoveList();
+            lists[ply] = list;
+        }
+        list.clear();
+        return list;
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
@@ -8,55 +8,18 @@ public class MoveUtils {
     public static boolean onBoard(int row, int col) {
         return row >= 1 && row <= 8 && col >= 1 && col <= 8;
     }
-    public static Set<ChessMove> generateDirectionalMoves(ChessBoard board, ChessPosition from,
-                                                          int[][] directions, ChessGame.TeamColor team) {
-        Set<ChessMove> legalMoves = new HashSet<>();
-        int startRow = from.getRow();
-        int startCol = from.getColumn();
 
-        for (int[] d : directions) {
-            int row = startRow + d[0];
-            int col = startCol + d[1];
-
-            while (onBoard(row, col)) {
-                ChessPosition to = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(to);
-
-                if (piece == null) {
-                    legalMoves.add(new ChessMove(from, to, null));
-                } else {
-                    if (board.getColor(to) != team) {
-                        legalMoves.add(new ChessMove(from, to, null));
-                    }
-                    break;
-                }
-                row += d[0];
-                col += d[1];
-            }
-        }
-        return legalMoves;
+    //Bitboard of squares a piece of the given team may land on, everything except its own pieces
+    public static long notOwn(ChessBoard board, ChessGame.TeamColor team) {
+        return (team == null) ? ~0L : ~board.getOccupancy(team);
     }
 
-    public static Set<ChessMove> generateFixedMoves(ChessBoard board, ChessPosition from,
-                                                    int[][] offsets, ChessGame.TeamColor team) {
-        Set<ChessMove> legalMoves = new HashSet<>();
-
-        int baseRow = from.getRow();
-        int baseCol = from.getColumn();
-
-        for (int[] offset : offsets) {
-            int row = baseRow + offset[0];
-            int col = baseCol + offset[1];
-
-            if (onBoard(row, col)) {
-                ChessPosition to = new ChessPosition(row, col);
-                ChessPiece target = board.getPiece(to);
-                if (target == null || board.getColor(to) != team) {
-                    legalMoves.add(new ChessMove(from, to, null));
-                }
-            }
+    //Turns a bitboard of destination squares into moves from a single square
+    public static Set<ChessMove> toMoves(ChessPosition from, long targets) {
+        Set<ChessMove> legalMoves = new HashSet<>(Long.bitCount(targets) * 2);
+        for (; targets != 0; targets &= targets - 1) {
+            legalMoves.add(new ChessMove(from, ChessBoard.toPosition(Long.numberOfTrailingZeros(targets)), null));
         }
-
         return legalMoves;
     }
 }
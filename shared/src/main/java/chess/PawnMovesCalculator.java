@@ -16,37 +16,31 @@ public class PawnMovesCalculator implements PieceMovesCalculator {
     public Set<ChessMove> calculateMoves(ChessBoard board, ChessPosition from) {
         Set<ChessMove> moves = new HashSet<>();
         int row = from.getRow();
-        int col = from.getColumn();
         ChessGame.TeamColor team = board.getColor(from);
-        int forward = (team == ChessGame.TeamColor.WHITE) ? 1 : -1;
-        int startRow = (team == ChessGame.TeamColor.WHITE) ? 2 : 7;
-        int promoteRow = (team == ChessGame.TeamColor.WHITE) ? 8 : 1;
-
-        // Forward 1
-        ChessPosition oneAhead = new ChessPosition(row + forward, col);
-        if (MoveUtils.onBoard(oneAhead.getRow(), col) && board.getPiece(oneAhead) == null) {
-            addPawnMove(moves, from, oneAhead, oneAhead.getRow() == promoteRow);
-            // Forward 2 from start
-            if (row == startRow) {
-                ChessPosition twoAhead = new ChessPosition(row + 2 * forward, col);
-                if (board.getPiece(twoAhead) == null) {
-                    moves.add(new ChessMove(from, twoAhead, null));
-                }
-            }
+        boolean white = team == ChessGame.TeamColor.WHITE;
+        int startRow = white ? 2 : 7;
+        int promoteRow = white ? 8 : 1;
+
+        int square = ChessBoard.squareIndex(row, from.getColumn());
+        long pawn = 1L << square;
+        long empty = ~board.getOccupancy();
+
+        // Forward 1, shifting off either end of the board leaves nothing
+        long oneAhead = (white ? pawn << 8 : pawn >>> 8) & empty;
+        long targets = oneAhead;
+        // Forward 2 from start
+        if (row == startRow) {
+            targets |= (white ? oneAhead << 8 : oneAhead >>> 8) & empty;
         }
 
         // Attacks
-        for (int dCol = -1; dCol <= 1; dCol += 2) {
-            int targetCol = col + dCol;
-            int targetRow = row + forward;
-            if (!MoveUtils.onBoard(targetRow, targetCol)){
-                continue;
-            }
+        if (team != null) {
+            targets |= AttackTables.pawnAttacks(team, square) & board.getOccupancy(team.opponent());
+        }
 
-            ChessPosition diag = new ChessPosition(targetRow, targetCol);
-            if (board.getPiece(diag) != null && board.getColor(diag) != team) {
-                addPawnMove(moves, from, diag, targetRow == promoteRow);
-            }
+        for (; targets != 0; targets &= targets - 1) {
+            ChessPosition to = ChessBoard.toPosition(Long.numberOfTrailingZeros(targets));
+            addPawnMove(moves, from, to, to.getRow() == promoteRow);
         }
 
         return moves;
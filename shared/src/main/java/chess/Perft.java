@@ -0,0 +1,213 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Perft (performance test) counts the leaf nodes of the move tree to a fixed depth.
+ * Known counts from reference positions catch move generator bugs that single-position
+ * tests miss, and the time taken measures move generation plus doMove/undoMove speed.
+ * <p>
+ * This engine has no castling or en passant, so counts only match the published ones
+ * for positions and depths where neither can happen. {@link Position} records the
+ * counts for this engine's rules.
+ * <p>
+ * Run from the command line as {@code Perft [position] [depth] [threads] [divide]},
+ * for example {@code Perft kiwipete 4 8 divide}.
+ */
+public final class Perft {
+
+    /**
+     * Reference positions and their leaf counts from depth 1 upwards under this
+     * engine's rules, cross-checked against playing every pseudo-legal move and
+     * testing for check
+     */
+    public enum Position {
+        START("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1",
+                20, 400, 8902, 197281, 4865351),
+        //castling rights removed
+        KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1",
+                46, 1865, 86585, 3499358),
+        ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                14, 191, 2810, 43087, 671300),
+        PROMOTIONS("n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1",
+                24, 496, 9483, 182838, 3605103),
+        MIDDLEGAME("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 1",
+                46, 2079, 89890, 3894594);
+
+        private final String fen;
+        private final long[] counts;
+
+        Position(String fen, long... counts) {
+            this.fen = fen;
+            this.counts = counts;
+        }
+
+        /**
+         * @return a new game set up in this position
+         */
+        public ChessGame newGame() {
+            return ChessGame.fromFen(fen);
+        }
+
+        /**
+         * @return the position in Forsyth-Edwards Notation
+         */
+        public String fen() {
+            return fen;
+        }
+
+        /**
+         * @return the deepest depth with a known count
+         */
+        public int maxDepth() {
+            return counts.length;
+        }
+
+        /**
+         * @param depth depth from 1 to {@link #maxDepth()}
+         * @return the number of leaf nodes at that depth
+         */
+        public long expected(int depth) {
+            return counts[depth - 1];
+        }
+    }
+
+    private Perft() {
+    }
+
+    /**
+     * Counts the leaf nodes of the move tree, leaving the game as it was found
+     *
+     * @param game  the game to search from, moves are played and taken back on it
+     * @param depth number of plies to search
+     * @return number of positions reached after exactly depth plies
+     */
+    public static long perft(ChessGame game, int depth) {
+        return perft(game, depth, 0);
+    }
+
+    private static long perft(ChessGame game, int depth, int ply) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = MoveList.forPly(ply);
+        LegalMoveGenerator.generate(game.getBoard(), game.getTeamTurn(), -1L, moves);
+        //every legal move is a leaf one ply from the end, no need to play them
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.doMove(moves.get(i));
+            nodes += perft(game, depth - 1, ply + 1);
+            game.undoMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf nodes below each root move, splitting the root moves across
+     * threads. Each thread searches its own copy of the game.
+     *
+     * @param game    the game to search from, it is not modified
+     * @param depth   number of plies to search, at least 1
+     * @param threads number of threads to search with
+     * @return leaf count for each root move, keyed by the move in coordinate notation
+     * (e2e4, e7e8q) and in generation order
+     */
+    public static Map<String, Long> divide(ChessGame game, int depth, int threads) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Divide needs a depth of at least 1.");
+        }
+        MoveList rootMoves = new MoveList();
+        LegalMoveGenerator.generate(game.getBoard(), game.getTeamTurn(), -1L, rootMoves);
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads))) {
+            List<Future<Long>> results = new ArrayList<>(rootMoves.size());
+            for (int i = 0; i < rootMoves.size(); i++) {
+                int move = rootMoves.get(i);
+                ChessGame copy = game.copy();
+                results.add(executor.submit(() -> {
+                    copy.doMove(move);
+                    return perft(copy, depth - 1, 1);
+                }));
+            }
+            for (int i = 0; i < rootMoves.size(); i++) {
+                counts.put(moveName(rootMoves.get(i)), results.get(i).get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Perft was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Perft failed.", e.getCause());
+        }
+        return counts;
+    }
+
+    /**
+     * Counts the leaf nodes of the move tree, splitting the root moves across threads
+     *
+     * @see #divide(ChessGame, int, int)
+     */
+    public static long perftParallel(ChessGame game, int depth, int threads) {
+        if (depth == 0) {
+            return 1;
+        }
+        long nodes = 0;
+        for (long count : divide(game, depth, threads).values()) {
+            nodes += count;
+        }
+        return nodes;
+    }
+
+    /**
+     * Writes an encoded move in coordinate notation, e.g. e2e4 or a7a8q
+     */
+    public static String moveName(int move) {
+        StringBuilder name = new StringBuilder(5);
+        appendSquare(name, EncodedMove.from(move));
+        appendSquare(name, EncodedMove.to(move));
+        ChessPiece.PieceType promotion = EncodedMove.promotion(move);
+        if (promotion != null) {
+            name.append(promotion == ChessPiece.PieceType.KNIGHT ? 'n' : Character.toLowerCase(promotion.name().charAt(0)));
+        }
+        return name.toString();
+    }
+
+    private static void appendSquare(StringBuilder name, int square) {
+        name.append((char) ('a' + (square & 7))).append((char) ('1' + (square >>> 3)));
+    }
+
+    public static void main(String[] args) {
+        Position position = args.length > 0 ? Position.valueOf(args[0].toUpperCase()) : Position.START;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : Math.min(5, position.maxDepth());
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        boolean showDivide = args.length > 3 && args[3].equalsIgnoreCase("divide");
+
+        ChessGame game = position.newGame();
+        long start = System.nanoTime();
+        Map<String, Long> counts = divide(game, depth, threads);
+        long elapsed = System.nanoTime() - start;
+
+        long nodes = 0;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            if (showDivide) {
+                System.out.println(entry.getKey() + ": " + entry.getValue());
+            }
+            nodes += entry.getValue();
+        }
+        System.out.printf("%s depth %d: %d nodes in %.3f s, %.0f nodes/s (%d threads)%n",
+                position, depth, nodes, elapsed / 1e9, nodes / (elapsed / 1e9), threads);
+        if (depth <= position.maxDepth() && nodes != position.expected(depth)) {
+            System.out.println("Expected " + position.expected(depth) + " nodes");
+        }
+    }
+}
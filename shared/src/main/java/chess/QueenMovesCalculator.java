@@ -4,13 +4,11 @@ import java.util.Set;
 
 public class QueenMovesCalculator implements PieceMovesCalculator {
 
-    private static final int[][] QUEEN_DIRECTIONS = {
-            {-1, -1}, {-1, 0}, {-1, 1}, { 0, -1}, { 0, 1}, { 1, -1}, { 1, 0}, { 1, 1}
-    };
-
     @Override
     public Set<ChessMove> calculateMoves(ChessBoard board, ChessPosition from) {
         ChessGame.TeamColor team = board.getColor(from);
-        return MoveUtils.generateDirectionalMoves(board, from, QUEEN_DIRECTIONS, team);
+        int square = ChessBoard.squareIndex(from.getRow(), from.getColumn());
+        long targets = AttackTables.queenAttacks(square, board.getOccupancy()) & MoveUtils.notOwn(board, team);
+        return MoveUtils.toMoves(from, targets);
     }
 }
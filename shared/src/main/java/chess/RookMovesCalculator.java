@@ -4,13 +4,11 @@ import java.util.Set;
 
 public class RookMovesCalculator implements PieceMovesCalculator {
 
-    private static final int[][] ROOK_DIRECTIONS = {
-            {-1, 0}, {1, 0}, {0, -1}, {0, 1}
-    };
-
     @Override
     public Set<ChessMove> calculateMoves(ChessBoard board, ChessPosition from) {
         ChessGame.TeamColor team = board.getColor(from);
-        return MoveUtils.generateDirectionalMoves(board, from, ROOK_DIRECTIONS, team);
+        int square = ChessBoard.squareIndex(from.getRow(), from.getColumn());
+        long targets = AttackTables.rookAttacks(square, board.getOccupancy()) & MoveUtils.notOwn(board, team);
+        return MoveUtils.toMoves(from, targets);
     }
 }
@@ -0,0 +1,45 @@
+package chess;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of one key per piece on
+ * its square, plus {@link #BLACK_TO_MOVE} when it is black's turn. Moving a piece only
+ * XORs out its old square and XORs in the new one, so keys are kept up to date at a
+ * constant cost per move instead of being recomputed from all 64 squares.
+ * <p>
+ * The keys come from a fixed seed so every JVM, client and server alike, computes the
+ * same key for the same position.
+ */
+final class Zobrist {
+
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+
+    //indexed by ChessBoard.bitboardIndex(color, type), then square
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    static final long BLACK_TO_MOVE;
+
+    static {
+        long state = SEED;
+        for (long[] keys : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                state += 0x9E3779B97F4A7C15L;
+                keys[square] = mix(state);
+            }
+        }
+        state += 0x9E3779B97F4A7C15L;
+        BLACK_TO_MOVE = mix(state);
+    }
+
+    private Zobrist() {
+    }
+
+    static long pieceKey(ChessPiece piece, int square) {
+        return PIECE_SQUARE[ChessBoard.bitboardIndex(piece.getTeamColor(), piece.getPieceType())][square];
+    }
+
+    //SplitMix64 finalizer, written out so the keys never depend on a JDK random implementation
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,78 @@
+package serialization;
+
+import chess.ChessBoard;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes a {@link ChessBoard} in the shape Gson gives it by reflection,
+ * {"squares":[[...8 pieces or null...] x 8]} with row 1 first, placing pieces straight
+ * onto a new board when reading
+ */
+public class ChessBoardAdapter extends TypeAdapter<ChessBoard> {
+    private final ChessPieceAdapter pieces = new ChessPieceAdapter();
+
+    @Override
+    public void write(JsonWriter out, ChessBoard board) throws IOException {
+        if (board == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("squares");
+        out.beginArray();
+        for (int row = 1; row <= 8; row++) {
+            out.beginArray();
+            for (int col = 1; col <= 8; col++) {
+                pieces.write(out, board.getPiece(ChessPosition.of(row, col)));
+            }
+            out.endArray();
+        }
+        out.endArray();
+        out.endObject();
+    }
+
+    @Override
+    public ChessBoard read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ChessBoard board = new ChessBoard();
+        in.beginObject();
+        while (in.hasNext()) {
+            if (in.nextName().equals("squares")) {
+                readSquares(in, board);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return board;
+    }
+
+    private void readSquares(JsonReader in, ChessBoard board) throws IOException {
+        in.beginArray();
+        for (int row = 1; in.hasNext(); row++) {
+            in.beginArray();
+            for (int col = 1; in.hasNext(); col++) {
+                ChessPiece piece = pieces.read(in);
+                if (row > 8 || col > 8) {
+                    throw new JsonParseException("Chess board squares must be 8 by 8");
+                }
+                if (piece != null) {
+                    board.addPiece(ChessPosition.of(row, col), piece);
+                }
+            }
+            in.endArray();
+        }
+        in.endArray();
+    }
+}
@@ -0,0 +1,88 @@
+package serialization;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes a {@link ChessGame}, either in the shape Gson gives it by reflection,
+ * {"teamColor":"WHITE","chessBoard":{...},"gameOver":false}, or as
+ * {"fen":"...","gameOver":false}. Reading accepts both forms whichever one the adapter
+ * writes.
+ */
+public class ChessGameAdapter extends TypeAdapter<ChessGame> {
+    private final ChessBoardAdapter boards = new ChessBoardAdapter();
+    private final boolean writeFen;
+
+    /**
+     * @param writeFen True to write games as FEN, false for the full board
+     */
+    public ChessGameAdapter(boolean writeFen) {
+        this.writeFen = writeFen;
+    }
+
+    @Override
+    public void write(JsonWriter out, ChessGame game) throws IOException {
+        if (game == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        if (writeFen) {
+            out.name("fen").value(game.toFen());
+        } else {
+            if (game.getTeamTurn() != null) {
+                out.name("teamColor").value(game.getTeamTurn().name());
+            }
+            if (game.getBoard() != null) {
+                out.name("chessBoard");
+                boards.write(out, game.getBoard());
+            }
+        }
+        out.name("gameOver").value(game.isGameOver());
+        out.endObject();
+    }
+
+    @Override
+    public ChessGame read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ChessGame.TeamColor teamColor = null;
+        ChessBoard board = null;
+        String fen = null;
+        boolean gameOver = false;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "teamColor" -> teamColor = ChessGame.TeamColor.valueOf(in.nextString());
+                case "chessBoard" -> board = boards.read(in);
+                case "fen" -> fen = in.nextString();
+                case "gameOver" -> gameOver = in.nextBoolean();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        ChessGame game;
+        if (fen != null) {
+            game = ChessGame.fromFen(fen);
+        } else {
+            game = new ChessGame();
+            if (board != null) {
+                game.setBoard(board);
+            }
+            if (teamColor != null) {
+                game.setTeamTurn(teamColor);
+            }
+        }
+        game.setGameOver(gameOver);
+        return game;
+    }
+}
@@ -0,0 +1,71 @@
+package serialization;
+
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes a {@link ChessMove} in the shape Gson gives the record,
+ * {"startPosition":{...},"endPosition":{...},"getPromotionPiece":"QUEEN"}, with the
+ * promotion left out when there is none. "promotionPiece" is accepted when reading.
+ */
+public class ChessMoveAdapter extends TypeAdapter<ChessMove> {
+    private final ChessPositionAdapter positions = new ChessPositionAdapter();
+
+    @Override
+    public void write(JsonWriter out, ChessMove move) throws IOException {
+        if (move == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("startPosition");
+        positions.write(out, move.startPosition());
+        out.name("endPosition");
+        positions.write(out, move.endPosition());
+        if (move.getPromotionPiece() != null) {
+            out.name("getPromotionPiece").value(move.getPromotionPiece().name());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public ChessMove read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ChessPosition start = null;
+        ChessPosition end = null;
+        ChessPiece.PieceType promotion = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "startPosition" -> start = positions.read(in);
+                case "endPosition" -> end = positions.read(in);
+                case "getPromotionPiece", "promotionPiece" -> promotion = readPieceType(in);
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (start == null || end == null) {
+            throw new JsonParseException("Chess move needs a start and end position");
+        }
+        return new ChessMove(start, end, promotion);
+    }
+
+    private static ChessPiece.PieceType readPieceType(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return ChessPiece.PieceType.valueOf(in.nextString());
+    }
+}
@@ -0,0 +1,53 @@
+package serialization;
+
+import chess.ChessGame;
+import chess.ChessPiece;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes a {@link ChessPiece} as {"color":"WHITE","type":"PAWN"} without
+ * reflection, handing back the shared instance from {@link ChessPiece#of} when reading
+ */
+public class ChessPieceAdapter extends TypeAdapter<ChessPiece> {
+
+    @Override
+    public void write(JsonWriter out, ChessPiece piece) throws IOException {
+        if (piece == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("color").value(piece.getTeamColor().name());
+        out.name("type").value(piece.getPieceType().name());
+        out.endObject();
+    }
+
+    @Override
+    public ChessPiece read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ChessGame.TeamColor color = null;
+        ChessPiece.PieceType type = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "color" -> color = ChessGame.TeamColor.valueOf(in.nextString());
+                case "type" -> type = ChessPiece.PieceType.valueOf(in.nextString());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (color == null || type == null) {
+            throw new JsonParseException("Chess piece needs both a color and a type");
+        }
+        return ChessPiece.of(color, type);
+    }
+}
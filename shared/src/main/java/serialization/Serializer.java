@@ -0,0 +1,46 @@
+package serialization;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import websocket.commands.UserGameCommand;
+import websocket.messages.ServerMessage;
+
+/**
+ * The Gson instances shared by the client and server. Gson is thread safe once built,
+ * so there is no need to create one per message or per row. Chess classes and
+ * websocket messages use the streaming adapters in this package instead of reflection,
+ * and the JSON they write is the same as Gson's reflective output.
+ */
+public final class Serializer {
+
+    /**
+     * Writes games with the full board
+     */
+    public static final Gson GSON = create(false);
+
+    /**
+     * Writes games as {"fen":"...","gameOver":false}. Both instances read either form.
+     */
+    public static final Gson FEN_GSON = create(true);
+
+    private Serializer() {
+    }
+
+    private static Gson create(boolean writeFen) {
+        ChessGameAdapter games = new ChessGameAdapter(writeFen);
+        return new GsonBuilder()
+                .registerTypeAdapter(ChessPosition.class, new ChessPositionAdapter())
+                .registerTypeAdapter(ChessPiece.class, new ChessPieceAdapter())
+                .registerTypeAdapter(ChessMove.class, new ChessMoveAdapter())
+                .registerTypeAdapter(ChessBoard.class, new ChessBoardAdapter())
+                .registerTypeAdapter(ChessGame.class, games)
+                .registerTypeHierarchyAdapter(UserGameCommand.class, new UserGameCommandAdapter())
+                .registerTypeHierarchyAdapter(ServerMessage.class, new ServerMessageAdapter(games))
+                .create();
+    }
+}
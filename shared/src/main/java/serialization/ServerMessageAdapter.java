@@ -0,0 +1,113 @@
+package serialization;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGame;
+import websocket.messages.MoveDelta;
+import websocket.messages.Notification;
+import websocket.messages.ServerMessage;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes every {@link ServerMessage} subclass in one pass, building the
+ * class that serverMessageType names once all the fields have been read
+ */
+public class ServerMessageAdapter extends TypeAdapter<ServerMessage> {
+    private final ChessGameAdapter games;
+    private final ChessMoveAdapter moves = new ChessMoveAdapter();
+
+    /**
+     * @param games writes the game of LOAD_GAME messages
+     */
+    public ServerMessageAdapter(ChessGameAdapter games) {
+        this.games = games;
+    }
+
+    @Override
+    public void write(JsonWriter out, ServerMessage message) throws IOException {
+        if (message == null) {
+            out.nullValue();
+            return;
+        }
+        //subclass fields first, the same order reflective Gson uses
+        out.beginObject();
+        if (message instanceof LoadGame loadGame) {
+            if (loadGame.getGame() != null) {
+                out.name("game");
+                games.write(out, loadGame.getGame());
+            }
+            if (loadGame.getPly() != null) {
+                out.name("ply").value(loadGame.getPly());
+            }
+        } else if (message instanceof MoveDelta delta) {
+            if (delta.getMove() != null) {
+                out.name("move");
+                moves.write(out, delta.getMove());
+            }
+            out.name("ply").value(delta.getPly());
+            out.name("positionKey").value(delta.getPositionKey());
+            if (delta.getStatus() != null) {
+                out.name("status").value(delta.getStatus().name());
+            }
+        } else if (message instanceof Notification notification && notification.getMessage() != null) {
+            out.name("message").value(notification.getMessage());
+        } else if (message instanceof ErrorMessage error && error.getMessage() != null) {
+            out.name("errorMessage").value(error.getMessage());
+        }
+        out.name("serverMessageType").value(message.getServerMessageType().name());
+        out.endObject();
+    }
+
+    @Override
+    public ServerMessage read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ServerMessage.ServerMessageType type = null;
+        ChessGame game = null;
+        String message = null;
+        String errorMessage = null;
+        ChessMove move = null;
+        Integer ply = null;
+        long positionKey = 0;
+        MoveDelta.Status status = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "serverMessageType" -> type = ServerMessage.ServerMessageType.valueOf(in.nextString());
+                case "game" -> game = games.read(in);
+                case "message" -> message = in.nextString();
+                case "errorMessage" -> errorMessage = in.nextString();
+                case "move" -> move = moves.read(in);
+                case "ply" -> ply = in.nextInt();
+                case "positionKey" -> positionKey = in.nextLong();
+                case "status" -> status = MoveDelta.Status.valueOf(in.nextString());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (type == null) {
+            throw new JsonParseException("Server message is missing its serverMessageType");
+        }
+        return switch (type) {
+            case LOAD_GAME -> ply == null ? new LoadGame(game) : new LoadGame(game, ply);
+            case NOTIFICATION -> new Notification(message);
+            case ERROR -> new ErrorMessage(errorMessage);
+            case MOVE_DELTA -> new MoveDelta(move, ply == null ? 0 : ply, positionKey, status);
+        };
+    }
+}
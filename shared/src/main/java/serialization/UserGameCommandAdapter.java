@@ -0,0 +1,88 @@
+package serialization;
+
+import chess.ChessMove;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import websocket.commands.*;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes every {@link UserGameCommand} subclass in one pass. The fields are
+ * collected in whatever order they arrive and commandType picks the class to build,
+ * so messages no longer have to be parsed once for the type and again for the command.
+ */
+public class UserGameCommandAdapter extends TypeAdapter<UserGameCommand> {
+    private final ChessMoveAdapter moves = new ChessMoveAdapter();
+
+    @Override
+    public void write(JsonWriter out, UserGameCommand command) throws IOException {
+        if (command == null) {
+            out.nullValue();
+            return;
+        }
+        //subclass fields first, the same order reflective Gson uses
+        out.beginObject();
+        if (command instanceof MakeMove makeMove && makeMove.getMove() != null) {
+            out.name("move");
+            moves.write(out, makeMove.getMove());
+        } else if (command instanceof Connect connect && connect.wantsMoveDeltas()) {
+            out.name("moveDeltas").value(true);
+        }
+        out.name("commandType").value(command.getCommandType().name());
+        if (command.getAuthToken() != null) {
+            out.name("authToken").value(command.getAuthToken());
+        }
+        if (command.getGameID() != null) {
+            out.name("gameID").value(command.getGameID());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public UserGameCommand read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        UserGameCommand.CommandType type = null;
+        String authToken = null;
+        Integer gameID = null;
+        ChessMove move = null;
+        boolean moveDeltas = false;
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "commandType" -> type = UserGameCommand.CommandType.valueOf(in.nextString());
+                case "authToken" -> authToken = in.nextString();
+                case "gameID" -> gameID = in.nextInt();
+                case "move" -> move = moves.read(in);
+                case "moveDeltas" -> moveDeltas = in.nextBoolean();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (type == null) {
+            throw new JsonParseException("Command is missing its commandType");
+        }
+        if (gameID == null) {
+            throw new JsonParseException("Command is missing its gameID");
+        }
+        return switch (type) {
+            case CONNECT -> new Connect(authToken, gameID, moveDeltas);
+            case MAKE_MOVE -> new MakeMove(authToken, gameID, move);
+            case LEAVE -> new Leave(authToken, gameID);
+            case RESIGN -> new Resign(authToken, gameID);
+            case RESYNC -> new Resync(authToken, gameID);
+        };
+    }
+}
@@ -2,12 +2,25 @@ package websocket.commands;
 
 public class Connect extends UserGameCommand {
 
+    // true asks for MOVE_DELTA after each move instead of LOAD_GAME, left out of the JSON when null
+    private final Boolean moveDeltas;
+
     public Connect(String authToken, int gameID) {
+        this(authToken, gameID, false);
+    }
+
+    public Connect(String authToken, int gameID, boolean moveDeltas) {
         super(CommandType.CONNECT, authToken, gameID);
+        this.moveDeltas = moveDeltas ? Boolean.TRUE : null;
     }
 
     // Empty constructor required for Gson
     public Connect() {
         super(CommandType.CONNECT, null, null);
+        this.moveDeltas = null;
+    }
+
+    public boolean wantsMoveDeltas() {
+        return Boolean.TRUE.equals(moveDeltas);
     }
 }
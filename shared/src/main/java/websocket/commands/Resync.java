@@ -0,0 +1,11 @@
+package websocket.commands;
+
+/**
+ * Asks the server for a full LOAD_GAME, sent by clients whose copy of the game no
+ * longer matches the MOVE_DELTA messages they receive
+ */
+public class Resync extends UserGameCommand {
+    public Resync(String authToken, int gameID) {
+        super(CommandType.RESYNC, authToken, gameID);
+    }
+}
@@ -5,13 +5,24 @@ import chess.ChessGame;
 public class LoadGame extends ServerMessage {
 
     public ChessGame game;
+    //moves played to reach the game, for clients applying MOVE_DELTA. Left out when null
+    public Integer ply;
 
     public LoadGame(ChessGame game) {
         super(ServerMessageType.LOAD_GAME);
         this.game = game;
     }
 
+    public LoadGame(ChessGame game, int ply) {
+        this(game);
+        this.ply = ply;
+    }
+
     public ChessGame getGame() {
         return game;
     }
+
+    public Integer getPly() {
+        return ply;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package websocket.messages;
+
+import chess.ChessMove;
+
+/**
+ * Sent instead of LOAD_GAME after a move to clients that asked for it when they
+ * connected. The client plays the move on its own copy of the game, then checks
+ * that its ply and position key match. If they do not, it sends RESYNC for a full
+ * LOAD_GAME.
+ */
+public class MoveDelta extends ServerMessage {
+
+    /**
+     * The state of the side to move once the move has been played
+     */
+    public enum Status {
+        NORMAL,
+        CHECK,
+        CHECKMATE,
+        STALEMATE
+    }
+
+    public ChessMove move;
+    //the move's number in the game, one more than the ply the client should be at
+    public int ply;
+    //ChessGame.positionKey() after the move
+    public long positionKey;
+    public Status status;
+
+    public MoveDelta(ChessMove move, int ply, long positionKey, Status status) {
+        super(ServerMessageType.MOVE_DELTA);
+        this.move = move;
+        this.ply = ply;
+        this.positionKey = positionKey;
+        this.status = status;
+    }
+
+    public ChessMove getMove() {
+        return move;
+    }
+
+    public int getPly() {
+        return ply;
+    }
+
+    public long getPositionKey() {
+        return positionKey;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,67 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveHistoryTests {
+
+    private static final ChessMove[] OPENING = {
+            new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null),
+            new ChessMove(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null),
+            new ChessMove(ChessPosition.of(1, 7), ChessPosition.of(3, 6), null),
+            new ChessMove(ChessPosition.of(8, 2), ChessPosition.of(6, 3), null),
+    };
+
+    @Test
+    void plyFollowsMovesAndUndo() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (ChessMove move : OPENING) {
+            game.makeMove(move);
+        }
+        assertEquals(4, game.getPly());
+        int[] history = game.getMoveHistory();
+        assertEquals(4, history.length);
+        assertEquals(OPENING[3], EncodedMove.toChessMove(history[3]));
+
+        game.undoMove();
+        assertEquals(3, game.getPly());
+        assertEquals(3, game.getMoveHistory().length);
+    }
+
+    @Test
+    void snapshotPlusTailRebuildsGame() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(OPENING[0]);
+        game.makeMove(OPENING[1]);
+        ChessGame snapshot = ChessGame.fromBytes(game.toBytes());
+        snapshot.setPly(game.getPly());
+        game.makeMove(OPENING[2]);
+        game.makeMove(OPENING[3]);
+
+        //the same moves a stored game would replay from its log
+        int[] history = game.getMoveHistory();
+        for (int move : Arrays.copyOfRange(history, 2, history.length)) {
+            snapshot.doMove(move);
+        }
+        assertEquals(game, snapshot);
+        assertEquals(game.getPly(), snapshot.getPly());
+    }
+
+    @Test
+    void copyIsIndependent() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(OPENING[0]);
+        ChessGame copy = game.copy();
+        copy.makeMove(OPENING[1]);
+
+        assertEquals(1, game.getPly());
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertEquals(2, copy.getPly());
+        copy.undoMove();
+        copy.undoMove();
+        assertEquals(new ChessGame(), copy);
+    }
+}
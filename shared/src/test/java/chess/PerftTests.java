@@ -0,0 +1,86 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerftTests {
+
+    @ParameterizedTest
+    @EnumSource(Perft.Position.class)
+    void referenceCounts(Perft.Position position) {
+        ChessGame game = position.newGame();
+        long key = game.positionKey();
+        for (int depth = 1; depth <= 3; depth++) {
+            assertEquals(position.expected(depth), Perft.perft(game, depth), position + " depth " + depth);
+        }
+        assertEquals(key, game.positionKey(), "perft should leave the game as it was");
+    }
+
+    @Test
+    void startPositionDepthFour() {
+        assertEquals(Perft.Position.START.expected(4), Perft.perft(Perft.Position.START.newGame(), 4));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Perft.Position.class)
+    void parallelMatchesSerial(Perft.Position position) {
+        ChessGame game = position.newGame();
+        assertEquals(Perft.perft(game, 3), Perft.perftParallel(game, 3, 4));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Perft.Position.class)
+    void matchesPseudoLegalSearch(Perft.Position position) {
+        ChessGame game = position.newGame();
+        assertEquals(naivePerft(game, 2), Perft.perft(game, 2));
+    }
+
+    @Test
+    void divideNamesRootMoves() {
+        Map<String, Long> divide = Perft.divide(new ChessGame(), 2, 2);
+        assertEquals(20, divide.size());
+        assertEquals(20L, divide.get("e2e4"));
+        assertEquals(20L, divide.get("g1f3"));
+
+        Map<String, Long> promotions = Perft.divide(Perft.Position.PROMOTIONS.newGame(), 1, 1);
+        assertTrue(promotions.containsKey("g2g1q"));
+        assertTrue(promotions.containsKey("g2h1n"));
+    }
+
+    //Plays every pseudo-legal piece move and keeps the ones that do not leave the king in check
+    private static long naivePerft(ChessGame game, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        ChessGame.TeamColor team = game.getTeamTurn();
+        ChessBoard board = game.getBoard();
+        List<ChessMove> moves = new ArrayList<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = ChessPosition.of(row, col);
+                ChessPiece piece = board.getPiece(position);
+                if (piece != null && piece.getTeamColor() == team) {
+                    Collection<ChessMove> pieceMoves = piece.pieceMoves(board, position);
+                    moves.addAll(pieceMoves);
+                }
+            }
+        }
+        long nodes = 0;
+        for (ChessMove move : moves) {
+            game.doMove(move);
+            if (!game.isInCheck(team)) {
+                nodes += naivePerft(game, depth - 1);
+            }
+            game.undoMove();
+        }
+        return nodes;
+    }
+}
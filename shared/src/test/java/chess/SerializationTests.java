@@ -0,0 +1,156 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import serialization.Serializer;
+import websocket.commands.Connect;
+import websocket.commands.MakeMove;
+import websocket.commands.Resync;
+import websocket.commands.UserGameCommand;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGame;
+import websocket.messages.MoveDelta;
+import websocket.messages.Notification;
+import websocket.messages.ServerMessage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerializationTests {
+
+    @ParameterizedTest
+    @EnumSource(Perft.Position.class)
+    void bytesRoundTrip(Perft.Position position) {
+        ChessGame game = position.newGame();
+        byte[] bytes = game.toBytes();
+        assertEquals(ChessGame.BINARY_LENGTH, bytes.length);
+
+        ChessGame copy = ChessGame.fromBytes(bytes);
+        assertEquals(game, copy);
+        assertEquals(game.positionKey(), copy.positionKey());
+        assertFalse(copy.isGameOver());
+    }
+
+    @Test
+    void bytesKeepGameOver() {
+        ChessGame game = new ChessGame();
+        game.setGameOver(true);
+        assertTrue(ChessGame.fromBytes(game.toBytes()).isGameOver());
+    }
+
+    @Test
+    void bytesRejectGarbage() {
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(new byte[3]));
+        byte[] bytes = new ChessGame().toBytes();
+        bytes[10] = (byte) 0xFF;
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromBytes(bytes));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Perft.Position.class)
+    void fenRoundTrip(Perft.Position position) {
+        ChessGame game = position.newGame();
+        assertEquals(position.fen(), game.toFen());
+        assertEquals(game, ChessGame.fromFen(game.toFen()));
+    }
+
+    @Test
+    void fenMatchesStartingGame() {
+        assertEquals(new ChessGame(), ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"));
+        assertEquals(ChessGame.TeamColor.WHITE, ChessGame.fromFen("8/8/8/8/8/8/8/K6k").getTeamTurn());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "8/8/8/8/8/8/8", "8/8/8/8/8/8/8/9", "8/8/8/8/8/8/8/7x w",
+            "8/8/8/8/8/8/8/ppppppppp w", "8/8/8/8/8/8/8/8 x", "8/8/8/8/8/8/8/8/8 w"})
+    void fenRejectsBadPositions(String fen) {
+        assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen));
+    }
+
+    @Test
+    void fenGsonAdapter() {
+        Gson fenGson = Serializer.FEN_GSON;
+        ChessGame game = Perft.Position.KIWIPETE.newGame();
+        game.setGameOver(true);
+
+        String json = fenGson.toJson(game);
+        assertEquals("{\"fen\":\"" + Perft.Position.KIWIPETE.fen() + "\",\"gameOver\":true}", json);
+        ChessGame copy = fenGson.fromJson(json, ChessGame.class);
+        assertEquals(game, copy);
+        assertTrue(copy.isGameOver());
+
+        //the plain reflective form still reads
+        assertEquals(game, fenGson.fromJson(new Gson().toJson(game), ChessGame.class));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Perft.Position.class)
+    void adaptersMatchReflectiveGson(Perft.Position position) {
+        Gson reflective = new Gson();
+        ChessGame game = position.newGame();
+        String json = Serializer.GSON.toJson(game);
+        assertEquals(reflective.toJson(game), json);
+        assertEquals(game, Serializer.GSON.fromJson(json, ChessGame.class));
+        assertEquals(game, reflective.fromJson(json, ChessGame.class));
+    }
+
+    @Test
+    void commandsReadAsTheirSubclass() {
+        ChessMove move = new ChessMove(ChessPosition.of(7, 1), ChessPosition.of(8, 1), ChessPiece.PieceType.QUEEN);
+        String json = new Gson().toJson(new MakeMove("token", 4, move));
+        assertEquals(json, Serializer.GSON.toJson(new MakeMove("token", 4, move)));
+
+        UserGameCommand command = Serializer.GSON.fromJson(json, UserGameCommand.class);
+        MakeMove makeMove = assertInstanceOf(MakeMove.class, command);
+        assertEquals(UserGameCommand.CommandType.MAKE_MOVE, makeMove.getCommandType());
+        assertEquals("token", makeMove.getAuthToken());
+        assertEquals(4, makeMove.getGameID());
+        assertEquals(move, makeMove.getMove());
+        assertEquals(command, Serializer.GSON.fromJson(Serializer.GSON.toJson(command), UserGameCommand.class));
+    }
+
+    @Test
+    void serverMessagesReadAsTheirSubclass() {
+        Gson reflective = new Gson();
+        ChessMove move = new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+        ServerMessage[] messages = {new LoadGame(new ChessGame()), new Notification("hi"), new ErrorMessage("Error: no"),
+                new LoadGame(new ChessGame(), 12), new MoveDelta(move, 1, -42L, MoveDelta.Status.CHECK)};
+        for (ServerMessage message : messages) {
+            String json = Serializer.GSON.toJson(message);
+            assertEquals(reflective.toJson(message), json);
+            ServerMessage read = Serializer.GSON.fromJson(json, ServerMessage.class);
+            assertEquals(message.getClass(), read.getClass());
+        }
+        LoadGame loadGame = (LoadGame) Serializer.GSON.fromJson(Serializer.FEN_GSON.toJson(messages[0]), ServerMessage.class);
+        assertEquals(new ChessGame(), loadGame.getGame());
+        assertEquals("hi", ((Notification) Serializer.GSON.fromJson(
+                Serializer.GSON.toJson(messages[1]), ServerMessage.class)).getMessage());
+    }
+
+    @Test
+    void moveDeltaOptInAndResync() {
+        Gson reflective = new Gson();
+        Connect connect = new Connect("token", 3, true);
+        String json = Serializer.GSON.toJson(connect);
+        assertEquals(reflective.toJson(connect), json);
+        assertTrue(assertInstanceOf(Connect.class, Serializer.GSON.fromJson(json, UserGameCommand.class)).wantsMoveDeltas());
+        assertEquals(reflective.toJson(new Connect("token", 3)), Serializer.GSON.toJson(new Connect("token", 3)));
+        assertFalse(((Connect) Serializer.GSON.fromJson(Serializer.GSON.toJson(new Connect("token", 3)),
+                UserGameCommand.class)).wantsMoveDeltas());
+
+        assertInstanceOf(Resync.class, Serializer.GSON.fromJson(
+                Serializer.GSON.toJson(new Resync("token", 3)), UserGameCommand.class));
+
+        ChessMove move = new ChessMove(ChessPosition.of(7, 1), ChessPosition.of(8, 1), ChessPiece.PieceType.QUEEN);
+        MoveDelta delta = (MoveDelta) Serializer.GSON.fromJson(Serializer.GSON.toJson(
+                new MoveDelta(move, 41, Long.MIN_VALUE + 7, MoveDelta.Status.CHECKMATE)), ServerMessage.class);
+        assertEquals(move, delta.getMove());
+        assertEquals(41, delta.getPly());
+        assertEquals(Long.MIN_VALUE + 7, delta.getPositionKey());
+        assertEquals(MoveDelta.Status.CHECKMATE, delta.getStatus());
+        assertEquals(12, ((LoadGame) Serializer.GSON.fromJson(
+                Serializer.GSON.toJson(new LoadGame(new ChessGame(), 12)), ServerMessage.class)).getPly());
+    }
+}